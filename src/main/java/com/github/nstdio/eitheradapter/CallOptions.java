@@ -0,0 +1,54 @@
+package com.github.nstdio.eitheradapter;
+
+import android.os.Handler;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The settings of the {@link EitherCall}s created for a single service method.
+ */
+final class CallOptions {
+    final Handler handler;
+    final boolean alwaysPost;
+    final EitherMetrics.Endpoint metrics;
+    /**
+     * {@code null} if the responses of the service method are not stored in the snapshot cache.
+     */
+    final EitherSnapshotCache snapshots;
+    /**
+     * {@code null} if the service method is not rate limited.
+     */
+    final RateLimiter rateLimiter;
+    /**
+     * Delays the calls over the rate limit. {@code null} if such calls must fail immediately.
+     */
+    final ScheduledExecutorService scheduler;
+    /**
+     * Runs the response conversion. {@code null} if the conversion happens on the network thread.
+     */
+    final Executor conversionExecutor;
+    /**
+     * Limits the number of concurrent calls. {@code null} if there is no limit.
+     */
+    final PriorityDispatcher dispatcher;
+    final int priority;
+
+    CallOptions(Handler handler, boolean alwaysPost, EitherMetrics.Endpoint metrics, EitherSnapshotCache snapshots,
+                RateLimiter rateLimiter, ScheduledExecutorService scheduler, Executor conversionExecutor,
+                PriorityDispatcher dispatcher, int priority) {
+        this.handler = handler;
+        this.alwaysPost = alwaysPost;
+        this.metrics = metrics;
+        this.snapshots = snapshots;
+        this.rateLimiter = rateLimiter;
+        this.scheduler = scheduler;
+        this.conversionExecutor = conversionExecutor;
+        this.dispatcher = dispatcher;
+        this.priority = priority;
+    }
+
+    static CallOptions of(Handler handler) {
+        return new CallOptions(handler, false, EitherMetrics.Endpoint.NONE, null, null, null, null, null, 0);
+    }
+}
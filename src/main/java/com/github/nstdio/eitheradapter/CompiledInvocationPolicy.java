@@ -0,0 +1,187 @@
+package com.github.nstdio.eitheradapter;
+
+import com.github.nstdio.eitheradapter.annotation.InvocationPolicy;
+import okhttp3.Headers;
+
+
+import static com.github.nstdio.eitheradapter.annotation.InvocationPolicy.StatusCodeRange.inRange;
+
+/**
+ * The routing decisions of an {@link InvocationPolicy} computed once per service method. Reading the annotation
+ * members goes through a dynamic proxy and clones the arrays on every access, so the policy is read exactly once and
+ * the decision for every standard status code is stored in a lookup table. Header matchers are prepared once as well,
+ * so matching a response allocates nothing.
+ */
+final class CompiledInvocationPolicy {
+    static final int LEFT = 0;
+    static final int RIGHT = 1;
+    /**
+     * Both {@link InvocationPolicy#left()} and {@link InvocationPolicy#right()} are specified, but neither contains the
+     * status code.
+     */
+    static final int NOT_CONTAINED = 2;
+    /**
+     * The status code does not match any of the bounds.
+     */
+    static final int UNDETERMINED = 3;
+
+    private static final int TABLE_SIZE = 600;
+
+    private final int[] left;
+    private final int[] right;
+    private final InvocationPolicy.StatusCodeRange[] leftRange;
+    private final InvocationPolicy.StatusCodeRange[] rightRange;
+    private final HeaderMatcher[] leftHeaders;
+    private final HeaderMatcher[] rightHeaders;
+    private final byte[] routes = new byte[TABLE_SIZE];
+
+    private CompiledInvocationPolicy(InvocationPolicy policy) {
+        left = policy.left();
+        right = policy.right();
+        leftRange = policy.leftRange();
+        rightRange = policy.rightRange();
+        leftHeaders = HeaderMatcher.compile(policy.leftHeaders());
+        rightHeaders = HeaderMatcher.compile(policy.rightHeaders());
+
+        for (int code = 0; code < TABLE_SIZE; code++) {
+            routes[code] = (byte) compute(code);
+        }
+    }
+
+    static CompiledInvocationPolicy compile(InvocationPolicy policy) {
+        return new CompiledInvocationPolicy(policy);
+    }
+
+    /**
+     * @return {@code true} if the policy has no bound for status code checking.
+     */
+    boolean isEmpty() {
+        return left.length == 0 && right.length == 0 && leftRange.length == 0 && rightRange.length == 0 &&
+                leftHeaders.length == 0 && rightHeaders.length == 0;
+    }
+
+    /**
+     * @param code    The response status code.
+     * @param headers The response headers.
+     *
+     * @return One of {@link #LEFT}, {@link #RIGHT}, {@link #NOT_CONTAINED} or {@link #UNDETERMINED}.
+     */
+    int route(int code, Headers headers) {
+        if (HeaderMatcher.matches(leftHeaders, headers)) {
+            return LEFT;
+        } else if (HeaderMatcher.matches(rightHeaders, headers)) {
+            return RIGHT;
+        }
+
+        return route(code);
+    }
+
+    /**
+     * @param code The response status code.
+     *
+     * @return One of {@link #LEFT}, {@link #RIGHT}, {@link #NOT_CONTAINED} or {@link #UNDETERMINED}.
+     */
+    int route(int code) {
+        if (code >= 0 && code < TABLE_SIZE) {
+            return routes[code];
+        }
+
+        return compute(code);
+    }
+
+    private int compute(int code) {
+        if (contains(left, code)) {
+            return LEFT;
+        } else if (contains(right, code)) {
+            return RIGHT;
+        }
+
+        final boolean leftEmpty = left.length == 0;
+        final boolean rightEmpty = right.length == 0;
+
+        if (!leftEmpty && !rightEmpty) {
+            return NOT_CONTAINED;
+        }
+
+        if (leftEmpty && inRange(leftRange, code)) {
+            return LEFT;
+        } else if (rightEmpty && inRange(rightRange, code)) {
+            return RIGHT;
+        }
+
+        return UNDETERMINED;
+    }
+
+    private static boolean contains(int[] statusCodes, int search) {
+        for (int statusCode : statusCodes) {
+            if (statusCode == search) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static final class HeaderMatcher {
+        private static final HeaderMatcher[] EMPTY = new HeaderMatcher[0];
+
+        private final String name;
+        private final String value;
+
+        private HeaderMatcher(String name, String value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        static HeaderMatcher[] compile(InvocationPolicy.Header[] headers) {
+            if (headers.length == 0) {
+                return EMPTY;
+            }
+
+            final HeaderMatcher[] matchers = new HeaderMatcher[headers.length];
+            for (int i = 0; i < headers.length; i++) {
+                matchers[i] = new HeaderMatcher(headers[i].name(), headers[i].value().trim());
+            }
+
+            return matchers;
+        }
+
+        static boolean matches(HeaderMatcher[] matchers, Headers headers) {
+            for (HeaderMatcher matcher : matchers) {
+                if (matcher.matches(headers.get(matcher.name))) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private boolean matches(String header) {
+            if (header == null) {
+                return false;
+            }
+
+            int end = header.indexOf(';');
+            if (end == -1) {
+                end = header.length();
+            }
+
+            int start = 0;
+            while (start < end && isWhitespace(header.charAt(start))) {
+                start++;
+            }
+            while (end > start && isWhitespace(header.charAt(end - 1))) {
+                end--;
+            }
+
+            return end - start == value.length() && header.regionMatches(true, start, value, 0, value.length());
+        }
+
+        /**
+         * The optional whitespace of HTTP: space or horizontal tab.
+         */
+        private static boolean isWhitespace(char c) {
+            return c == ' ' || c == '\t';
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.nstdio.eitheradapter;
+
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Converter;
+
+import java.io.IOException;
+
+/**
+ * The converter of the {@link Void} branch. The body is never parsed.
+ * <p>
+ * Retrofit reads the body of a service method which is not annotated with {@link retrofit2.http.Streaming} into memory
+ * before the conversion, so for such methods discarding merely drops the buffer. Only for the {@code @Streaming}
+ * methods the body is still on the wire: small bodies are drained, so that the connection can be reused, and large ones
+ * are closed right away, because reading them costs more than a new connection.
+ */
+final class DiscardingConverter implements Converter<ResponseBody, Void> {
+    static final DiscardingConverter INSTANCE = new DiscardingConverter();
+
+    /**
+     * The largest body in bytes of the {@code @Streaming} method which is drained rather than closed.
+     */
+    static final long DRAIN_LIMIT = 64 * 1024;
+
+    private DiscardingConverter() {
+    }
+
+    static void discard(ResponseBody body) {
+        try {
+            final long length = body.contentLength();
+            if (length > DRAIN_LIMIT) {
+                return;
+            }
+
+            final BufferedSource source = body.source();
+            if (length != -1) {
+                source.skip(length);
+            } else if (!source.request(DRAIN_LIMIT + 1)) {
+                source.skip(source.buffer().size());
+            }
+        } catch (IOException ignored) {
+            // The connection is released on close anyway.
+        } finally {
+            body.close();
+        }
+    }
+
+    @Override
+    public Void convert(ResponseBody value) {
+        discard(value);
+        return null;
+    }
+}
@@ -2,12 +2,25 @@ package com.github.nstdio.eitheradapter;
 
 import android.os.Handler;
 import com.github.nstdio.eitheradapter.annotation.InvocationPolicy;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Converter;
 import retrofit2.Response;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 import static com.github.nstdio.eitheradapter.annotation.InvocationPolicy.StatusCodeRange.inRange;
 
 /**
@@ -24,31 +37,63 @@ import static com.github.nstdio.eitheradapter.annotation.InvocationPolicy.Status
  * @param <R> The second possible type of response.
  */
 public class EitherCall<L, R> {
+    /**
+     * How often the stream waiting for the delivery of the pending frames checks whether the call is canceled.
+     */
+    private static final long PERMIT_POLL_MILLIS = 100;
+
     private final Call<ResponseBody> call;
     private final Converter<ResponseBody, L> leftConverter;
     private final Converter<ResponseBody, R> rightConverter;
-    private final InvocationPolicy invocationPolicy;
+    private final CompiledInvocationPolicy invocationPolicy;
     private final Handler handler;
+    private final EitherMetrics.Endpoint metrics;
+    private final boolean alwaysPost;
+    private final EitherSnapshotCache snapshots;
+    private final RateLimiter rateLimiter;
+    private final ScheduledExecutorService scheduler;
+    private final Executor conversionExecutor;
+    private final PriorityDispatcher dispatcher;
+    private volatile int priority;
     private EitherCallback<L, R> callback;
     private boolean converterExc;
+    /**
+     * The headers of the response, set before it is routed.
+     */
+    private volatile Headers headers;
+    /**
+     * Not {@code null} if the call is in the caching mode.
+     */
+    private Replay replay;
 
     public EitherCall(final Call<ResponseBody> call, Converter<ResponseBody, L> leftConverter,
                       Converter<ResponseBody, R> rightConverter, InvocationPolicy statusCode, Handler handler) {
+        this(call, leftConverter, rightConverter, CompiledInvocationPolicy.compile(statusCode),
+                CallOptions.of(handler));
+    }
+
+    EitherCall(final Call<ResponseBody> call, Converter<ResponseBody, L> leftConverter,
+               Converter<ResponseBody, R> rightConverter, CompiledInvocationPolicy invocationPolicy,
+               CallOptions options) {
         this.call = call;
         this.leftConverter = leftConverter;
         this.rightConverter = rightConverter;
-        this.invocationPolicy = statusCode;
-        this.handler = handler;
+        this.invocationPolicy = invocationPolicy;
+        this.handler = options.handler;
+        this.metrics = options.metrics;
+        this.alwaysPost = options.alwaysPost;
+        this.snapshots = options.snapshots;
+        this.rateLimiter = options.rateLimiter;
+        this.scheduler = options.scheduler;
+        this.conversionExecutor = options.conversionExecutor;
+        this.dispatcher = options.dispatcher;
+        this.priority = options.priority;
 
         checkEmptyBounds();
     }
 
     private void checkEmptyBounds() {
-        if (invocationPolicy.right().length == 0 &&
-                invocationPolicy.left().length == 0 &&
-                invocationPolicy.leftRange().length == 0 &&
-                invocationPolicy.rightRange().length == 0) {
-
+        if (invocationPolicy.isEmpty()) {
             throw new IllegalStateException("Invocation policy has no bound for status code checking.");
         }
     }
@@ -57,44 +102,227 @@ public class EitherCall<L, R> {
      * @param callback
      */
     public void callback(final EitherCallback<L, R> callback) {
+        final Replay replay;
+        synchronized (this) {
+            replay = this.replay;
+        }
+
+        if (replay != null) {
+            replay.subscribe(callback);
+            return;
+        }
+
+        execute(callback);
+    }
+
+    /**
+     * Overrides the priority set with {@link com.github.nstdio.eitheradapter.annotation.Priority}. Must be called
+     * before the call is executed.
+     *
+     * @param priority The priority. The greater value means the higher priority.
+     *
+     * @return This call.
+     */
+    public EitherCall<L, R> priority(int priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Switches this call to the caching mode. In this mode the request is executed only once, on the first
+     * {@link #callback(EitherCallback)} invocation. The converted result is remembered and passed to every callback,
+     * including the ones registered while the request is still in flight, without any further network or conversion
+     * work.
+     *
+     * @return This call.
+     */
+    public synchronized EitherCall<L, R> cached() {
+        if (replay == null) {
+            replay = new Replay();
+        }
+
+        return this;
+    }
+
+    private void execute(final EitherCallback<L, R> callback) {
+        if (snapshots != null && acceptsSnapshot(callback)) {
+            final Revalidation revalidation = new Revalidation(callback);
+            this.callback = revalidation;
+            loadSnapshot(revalidation);
+        } else {
+            this.callback = callback;
+        }
+
+        enqueue(new RoutingCallback(true) {
+            @Override
+            void onLeftResponse(Response<ResponseBody> response) {
+                callOnLeft(response);
+            }
+        });
+    }
+
+    /**
+     * The snapshot is passed only to {@link EitherSnapshotCallback#onSnapshot(Object)}, the callbacks of the caching
+     * mode get it as soon as they subscribe.
+     */
+    private synchronized boolean acceptsSnapshot(EitherCallback<L, R> callback) {
+        return callback instanceof EitherSnapshotCallback || callback == replay;
+    }
+
+    /**
+     * Executes the call whose response body is a stream of frames. The status code is routed as usual, but when the
+     * response is routed to the first parameterized type each frame is converted separately and passed to
+     * {@link EitherStreamCallback#onLeft(Object)} as soon as it is received. The response routed to the second
+     * parameterized type is converted as a whole.
+     * <p>
+     * The service method should be annotated with {@link retrofit2.http.Streaming}, otherwise Retrofit reads the
+     * entire body into memory before the first frame can be delivered.
+     *
+     * @param format           The format of the frames.
+     * @param maxPendingFrames The maximum number of converted frames waiting for delivery. When the limit is reached
+     *                         reading from the network is suspended until the callback catches up.
+     * @param callback         The callback.
+     */
+    public void stream(final StreamFormat format, final int maxPendingFrames,
+                       final EitherStreamCallback<L, R> callback) {
+        if (maxPendingFrames < 1) {
+            throw new IllegalArgumentException("maxPendingFrames must be positive: " + maxPendingFrames);
+        }
+
+        synchronized (this) {
+            if (replay != null) {
+                throw new IllegalStateException("Streaming is not supported in the caching mode.");
+            }
+        }
+
         this.callback = callback;
 
-        call.enqueue(new Callback<ResponseBody>() {
+        enqueue(new RoutingCallback(false) {
             @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
-                final int code = response.code();
+            void onLeftResponse(Response<ResponseBody> response) {
+                streamLeft(determineResponseBody(response), format, new Semaphore(maxPendingFrames), callback);
+            }
+        });
+    }
+
+    /**
+     * Cancels the underlying call. A response that is already received is discarded without conversion, a conversion
+     * queued on the conversion executor is skipped, and a result or a failure that is already posted to the handler is
+     * dropped right before the delivery. Hence, when called on the handler thread, none of the {@link EitherCallback}
+     * methods is invoked afterwards. When called on any other
+     * thread, a callback which is already running or about to run might still complete.
+     */
+    public void cancel() {
+        call.cancel();
+    }
+
+    /**
+     * @return {@code true} if {@link #cancel()} was called.
+     */
+    public boolean isCanceled() {
+        return call.isCanceled();
+    }
+
+    /**
+     * @return The headers of the response or {@code null} if it is not received yet. Available from within any of the
+     * {@link EitherCallback} methods invoked with the response.
+     */
+    Headers headers() {
+        return headers;
+    }
 
-                if (contains(invocationPolicy.left(), code)) {
-                    callOnLeft(response);
+    private void streamLeft(ResponseBody body, StreamFormat format, final Semaphore pending,
+                            final EitherStreamCallback<L, R> callback) {
+        if (body == null) {
+            deliver(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onComplete();
+                }
+            });
+            return;
+        }
+
+        try {
+            final BufferedSource source = body.source();
+            final MediaType contentType = body.contentType();
+
+            String frame;
+            while ((frame = format.nextFrame(source)) != null) {
+                if (call.isCanceled()) {
                     return;
-                } else if (contains(invocationPolicy.right(), code)) {
-                    callOnRight(response);
+                }
+
+                final long start = System.nanoTime();
+                final L left;
+                try {
+                    left = leftConverter.convert(ResponseBody.create(contentType, frame));
+                } catch (Exception e) {
+                    metrics.conversionFailure();
+                    throw e;
+                }
+                metrics.conversion(System.nanoTime() - start);
+
+                if (!awaitPermit(pending)) {
                     return;
                 }
 
-                final boolean leftEmpty = invocationPolicy.left().length == 0;
-                final boolean rightEmpty = invocationPolicy.right().length == 0;
+                final boolean delivered = deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            callback.onLeft(left);
+                        } finally {
+                            pending.release();
+                        }
+                    }
+                });
 
-                if (!leftEmpty && !rightEmpty) {
-                    callback.onException(new IllegalStateException("Either left nor right does not contain response" +
-                            " status code: " + code));
+                if (!delivered) {
+                    // The looper is quitting, nobody is going to consume the stream.
+                    call.cancel();
                     return;
                 }
+            }
 
-                if (leftEmpty && inRange(invocationPolicy.leftRange(), code)) {
-                    callOnLeft(response);
-                } else if (rightEmpty && inRange(invocationPolicy.rightRange(), code)) {
-                    callOnRight(response);
-                } else {
-                    callback.onException(new IllegalStateException("Cannot determine status code: " + code));
+            deliver(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onComplete();
                 }
+            });
+        } catch (final Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
             }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                callback.onException(t);
+            if (!call.isCanceled()) {
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onException(e);
+                    }
+                });
             }
-        });
+        } finally {
+            body.close();
+        }
+    }
+
+    /**
+     * Waits for the delivery of a pending frame, but wakes up periodically, because the frames are not delivered once
+     * the call is canceled.
+     *
+     * @return {@code false} if the call was canceled while waiting.
+     */
+    private boolean awaitPermit(Semaphore pending) throws InterruptedException {
+        while (!pending.tryAcquire(PERMIT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (call.isCanceled()) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     private void callOnRight(Response<ResponseBody> response) {
@@ -103,34 +331,244 @@ public class EitherCall<L, R> {
             return;
         }
 
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                callback.onRight(right);
+            }
+        });
+    }
+
+    /**
+     * Hands the conversion off the network thread when the factory has the conversion executor. If the executor
+     * rejects the task the conversion happens on the current thread, which slows the network thread down in turn. The
+     * queued conversion is skipped and the response is discarded if the call is canceled in the meantime.
+     */
+    private void convertOnExecutor(final Response<ResponseBody> response, final Runnable conversion) {
+        if (conversionExecutor == null) {
+            conversion.run();
+            return;
+        }
+
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                if (call.isCanceled()) {
+                    discard(response);
+                    return;
+                }
+
+                conversion.run();
+            }
+        };
+
         try {
-            handler.post(new Runnable() {
-                @Override
-                public void run() {
-                    callback.onRight(right);
+            conversionExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            conversion.run();
+        }
+    }
+
+    private void enqueue(final RoutingCallback routingCallback) {
+        final long wait = rateLimiter != null ? rateLimiter.acquire(scheduler != null) : 0;
+
+        if (wait < 0) {
+            failBeforeExecution(new RateLimitExceededException());
+        } else if (wait == 0) {
+            dispatch(routingCallback);
+        } else {
+            try {
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (call.isCanceled()) {
+                            return;
+                        }
+
+                        dispatch(routingCallback);
+                    }
+                }, wait, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                failBeforeExecution(e);
+            }
+        }
+    }
+
+    /**
+     * Reports the call which never reached the network through the handler, as any other outcome.
+     */
+    private void failBeforeExecution(Throwable t) {
+        metrics.exception();
+        deliverException(t);
+    }
+
+    private void deliverException(final Throwable t) {
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                callback.onException(t);
+            }
+        });
+    }
+
+    private void dispatch(final RoutingCallback routingCallback) {
+        if (dispatcher == null) {
+            routingCallback.start = System.nanoTime();
+            call.enqueue(routingCallback);
+            return;
+        }
+
+        dispatcher.submit(priority, new PriorityDispatcher.Job() {
+            @Override
+            public boolean start() {
+                if (call.isCanceled()) {
+                    return false;
                 }
-            });
+
+                routingCallback.dispatched = true;
+                routingCallback.start = System.nanoTime();
+                try {
+                    call.enqueue(routingCallback);
+                    return true;
+                } catch (RuntimeException e) {
+                    // Might be called within the response of another call, which must not be affected.
+                    routingCallback.dispatched = false;
+                    failBeforeExecution(e);
+                    return false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads and converts the snapshot off the calling thread, on the conversion executor if there is one, otherwise on
+     * the thread of the snapshot cache. The snapshot is dropped if the fresh result is delivered first.
+     */
+    private void loadSnapshot(final Revalidation revalidation) {
+        final Runnable load = new Runnable() {
+            @Override
+            public void run() {
+                final L left = readSnapshot();
+                if (left == null) {
+                    return;
+                }
+
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        revalidation.stale(left);
+                    }
+                });
+            }
+        };
+
+        try {
+            if (conversionExecutor != null) {
+                conversionExecutor.execute(load);
+            } else {
+                snapshots.execute(load);
+            }
+        } catch (RejectedExecutionException e) {
+            // The snapshot is only a head start, the fresh response is delivered anyway.
+        }
+    }
+
+    private L readSnapshot() {
+        final ResponseBody body;
+        try {
+            body = snapshots.get(snapshotKey());
+        } catch (IOException e) {
+            return null;
+        }
+
+        if (body == null) {
+            return null;
+        }
+
+        try {
+            return leftConverter.convert(body);
         } catch (Exception e) {
-            callback.onRight(right);
+            // The snapshot is unreadable by the current converter, the fresh response will replace it.
+            return null;
+        } finally {
+            body.close();
         }
+    }
 
+    private String snapshotKey() {
+        final Request request = call.request();
+        return request.method() + " " + request.url();
+    }
+
+    private void storeSnapshot(MediaType contentType, byte[] bytes) {
+        try {
+            snapshots.put(snapshotKey(), contentType, bytes);
+        } catch (IOException e) {
+            // The previous snapshot, if any, stays in place.
+        }
     }
 
     private void callOnLeft(Response<ResponseBody> response) {
+        final ResponseBody body = response.body();
+        byte[] snapshot = null;
+        if (snapshots != null && response.isSuccessful() && body != null) {
+            try {
+                snapshot = body.bytes();
+                response = Response.success(ResponseBody.create(body.contentType(), snapshot), response.raw());
+            } catch (IOException e) {
+                snapshot = null;
+            }
+        }
+
         final L left = convertLeft(response);
         if (converterExc) {
             return;
         }
 
-        try {
-            handler.post(new Runnable() {
-                @Override
-                public void run() {
-                    callback.onLeft(left);
+        // Stored only once converted, so that a malformed body never replaces the last good snapshot.
+        if (snapshot != null) {
+            storeSnapshot(body.contentType(), snapshot);
+        }
+
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                callback.onLeft(left);
+            }
+        });
+    }
+
+    /**
+     * @return {@code false} if the handler refused the runnable, because its looper is quitting.
+     */
+    private boolean deliver(final Runnable runnable) {
+        final Runnable delivery = new Runnable() {
+            @Override
+            public void run() {
+                if (!call.isCanceled()) {
+                    runnable.run();
                 }
-            });
+            }
+        };
+
+        if (!alwaysPost && onHandlerThread()) {
+            delivery.run();
+            return true;
+        }
+
+        try {
+            return handler.post(delivery);
+        } catch (Exception e) {
+            delivery.run();
+            return true;
+        }
+    }
+
+    private boolean onHandlerThread() {
+        try {
+            return handler.getLooper().getThread() == Thread.currentThread();
         } catch (Exception e) {
-            callback.onLeft(left);
+            return false;
         }
     }
 
@@ -153,32 +591,324 @@ public class EitherCall<L, R> {
         return clientOrServerError(response.code()) ? response.errorBody() : response.body();
     }
 
+    private void discard(Response<ResponseBody> response) {
+        final ResponseBody body = response.isSuccessful() ? response.body() : response.errorBody();
+        if (body != null) {
+            DiscardingConverter.discard(body);
+        }
+    }
+
     private Object convert(Converter<ResponseBody, ?> converter, ResponseBody body) {
-        if (body == null || body.contentLength() == 0) {
+        if (body == null) {
             return null;
         }
 
         try {
-            return converter.convert(body);
+            if (body.contentLength() == 0) {
+                return null;
+            }
+
+            final long start = System.nanoTime();
+            final Object converted = converter.convert(body);
+            metrics.conversion(System.nanoTime() - start);
+
+            return converted;
         } catch (Exception e) {
+            metrics.conversionFailure();
             converterExc = true;
-            callback.onException(e);
+            deliverException(e);
+        } finally {
+            // Not every converter closes the body it was given. For the methods annotated with @Streaming the body is
+            // still backed by the connection, closing it releases the connection for reuse. Buffered bodies are
+            // unaffected.
+            body.close();
         }
 
         return null;
     }
 
-    private boolean contains(int[] statusCodes, int search) {
-        if (statusCodes == null || statusCodes.length == 0) {
-            return false;
+    private abstract class RoutingCallback implements Callback<ResponseBody> {
+        /**
+         * Whether the left response might be handled on the conversion executor.
+         */
+        private final boolean offloadLeft;
+        /**
+         * The time the call is enqueued, which might be later than the creation due to the rate limit or the
+         * dispatcher.
+         */
+        long start;
+        /**
+         * Whether the call holds a slot of the dispatcher.
+         */
+        boolean dispatched;
+
+        RoutingCallback(boolean offloadLeft) {
+            this.offloadLeft = offloadLeft;
+        }
+
+        abstract void onLeftResponse(Response<ResponseBody> response);
+
+        void release() {
+            if (dispatched) {
+                dispatched = false;
+                dispatcher.finished();
+            }
+        }
+
+        @Override
+        public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+            try {
+                route(call, response);
+            } finally {
+                // The slot is released once the response is routed, the dispatcher might start the next call on this
+                // thread.
+                release();
+            }
+        }
+
+        private void route(Call<ResponseBody> call, final Response<ResponseBody> response) {
+            if (call.isCanceled()) {
+                discard(response);
+                return;
+            }
+
+            metrics.network(System.nanoTime() - start);
+            headers = response.headers();
+            final int code = response.code();
+
+            switch (invocationPolicy.route(code, response.headers())) {
+                case CompiledInvocationPolicy.LEFT:
+                    metrics.left();
+                    if (offloadLeft) {
+                        convertOnExecutor(response, new Runnable() {
+                            @Override
+                            public void run() {
+                                onLeftResponse(response);
+                            }
+                        });
+                    } else {
+                        onLeftResponse(response);
+                    }
+                    break;
+                case CompiledInvocationPolicy.RIGHT:
+                    metrics.right();
+                    convertOnExecutor(response, new Runnable() {
+                        @Override
+                        public void run() {
+                            callOnRight(response);
+                        }
+                    });
+                    break;
+                case CompiledInvocationPolicy.NOT_CONTAINED:
+                    metrics.unmatched();
+                    deliverException(new IllegalStateException("Either left nor right does not contain " +
+                            "response status code: " + code));
+                    break;
+                default:
+                    metrics.unmatched();
+                    deliverException(new IllegalStateException("Cannot determine status code: " + code));
+            }
+        }
+
+        @Override
+        public void onFailure(Call<ResponseBody> call, Throwable t) {
+            try {
+                if (!call.isCanceled()) {
+                    metrics.exception();
+                    deliverException(t);
+                }
+            } finally {
+                release();
+            }
+        }
+    }
+
+    /**
+     * Stands between the call and the callback of the method annotated with
+     * {@link com.github.nstdio.eitheradapter.annotation.Snapshot}, so that the snapshot is not delivered after the fresh
+     * result and, in the caching mode, is not remembered as the result. The target is either the
+     * {@link EitherSnapshotCallback} or the {@link Replay}.
+     */
+    private final class Revalidation implements EitherCallback<L, R> {
+        private final EitherCallback<L, R> target;
+        private final Replay replay;
+        private volatile boolean settled;
+
+        Revalidation(EitherCallback<L, R> target) {
+            this.target = target;
+
+            synchronized (EitherCall.this) {
+                replay = target == EitherCall.this.replay ? EitherCall.this.replay : null;
+            }
+        }
+
+        void stale(L left) {
+            if (settled) {
+                return;
+            }
+
+            if (replay != null) {
+                replay.stale(left);
+            } else {
+                ((EitherSnapshotCallback<L, R>) target).onSnapshot(left);
+            }
+        }
+
+        @Override
+        public void onLeft(L left) {
+            settled = true;
+            target.onLeft(left);
+        }
+
+        @Override
+        public void onRight(R right) {
+            settled = true;
+            target.onRight(right);
+        }
+
+        @Override
+        public void onException(Throwable t) {
+            settled = true;
+            target.onException(t);
+        }
+    }
+
+    /**
+     * Remembers the result of the single execution and passes it to every subscribed callback. The snapshot is passed
+     * only to the subscribed {@link EitherSnapshotCallback}.
+     */
+    private final class Replay implements EitherCallback<L, R> {
+        private static final int PENDING = 0;
+        private static final int LEFT = 1;
+        private static final int RIGHT = 2;
+        private static final int EXCEPTION = 3;
+
+        private final List<EitherCallback<L, R>> subscribers = new ArrayList<EitherCallback<L, R>>();
+        private boolean executed;
+        private int outcome = PENDING;
+        /**
+         * The snapshot passed to the subscribers while the request is in flight, never remembered as the result.
+         */
+        private L stale;
+        private boolean hasStale;
+        private L left;
+        private R right;
+        private Throwable exception;
+
+        void subscribe(final EitherCallback<L, R> subscriber) {
+            final boolean completed;
+            final boolean execute;
+            final boolean hasStale;
+            final L stale;
+            synchronized (this) {
+                completed = outcome != PENDING;
+                if (!completed) {
+                    subscribers.add(subscriber);
+                }
+
+                execute = !executed;
+                executed = true;
+                hasStale = this.hasStale && !completed;
+                stale = this.stale;
+            }
+
+            if (completed) {
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        replayTo(subscriber);
+                    }
+                });
+            } else if (execute) {
+                execute(this);
+            } else if (hasStale && subscriber instanceof EitherSnapshotCallback) {
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        ((EitherSnapshotCallback<L, R>) subscriber).onSnapshot(stale);
+                    }
+                });
+            }
+        }
+
+        void stale(L stale) {
+            final List<EitherCallback<L, R>> subscribers;
+            synchronized (this) {
+                if (outcome != PENDING) {
+                    return;
+                }
+
+                this.stale = stale;
+                hasStale = true;
+                subscribers = new ArrayList<EitherCallback<L, R>>(this.subscribers);
+            }
+
+            for (EitherCallback<L, R> subscriber : subscribers) {
+                if (subscriber instanceof EitherSnapshotCallback) {
+                    ((EitherSnapshotCallback<L, R>) subscriber).onSnapshot(stale);
+                }
+            }
+        }
+
+        @Override
+        public void onLeft(L left) {
+            complete(LEFT, left, null, null);
+        }
+
+        @Override
+        public void onRight(R right) {
+            complete(RIGHT, null, right, null);
         }
 
-        for (int statusCode : statusCodes) {
-            if (statusCode == search) {
-                return true;
+        @Override
+        public void onException(Throwable t) {
+            complete(EXCEPTION, null, null, t);
+        }
+
+        private void complete(int outcome, L left, R right, Throwable exception) {
+            final List<EitherCallback<L, R>> subscribers;
+            synchronized (this) {
+                if (this.outcome != PENDING) {
+                    return;
+                }
+
+                this.outcome = outcome;
+                this.stale = null;
+                this.left = left;
+                this.right = right;
+                this.exception = exception;
+
+                subscribers = new ArrayList<EitherCallback<L, R>>(this.subscribers);
+                this.subscribers.clear();
+            }
+
+            for (EitherCallback<L, R> subscriber : subscribers) {
+                replayTo(subscriber);
             }
         }
 
-        return false;
+        private void replayTo(EitherCallback<L, R> subscriber) {
+            final int outcome;
+            final L left;
+            final R right;
+            final Throwable exception;
+            synchronized (this) {
+                outcome = this.outcome;
+                left = this.left;
+                right = this.right;
+                exception = this.exception;
+            }
+
+            switch (outcome) {
+                case LEFT:
+                    subscriber.onLeft(left);
+                    break;
+                case RIGHT:
+                    subscriber.onRight(right);
+                    break;
+                default:
+                    subscriber.onException(exception);
+            }
+        }
     }
 }
@@ -3,31 +3,100 @@ package com.github.nstdio.eitheradapter;
 import android.os.Handler;
 import android.os.Looper;
 import com.github.nstdio.eitheradapter.annotation.InvocationPolicy;
+import com.github.nstdio.eitheradapter.annotation.Priority;
+import com.github.nstdio.eitheradapter.annotation.RateLimit;
+import com.github.nstdio.eitheradapter.annotation.Snapshot;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.CallAdapter;
 import retrofit2.Converter;
 import retrofit2.Retrofit;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.HTTP;
+import retrofit2.http.OPTIONS;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public final class EitherCallAdapterFactory extends CallAdapter.Factory {
 
     public static final Annotation[] ANNOTATIONS = new Annotation[0];
+    private static final CompiledInvocationPolicy DEFAULT_POLICY = CompiledInvocationPolicy.compile(defaultPolicy());
     private final Handler handler;
+    private final EitherMetrics metrics;
+    private final boolean alwaysPost;
+    private final EitherSnapshotCache snapshotCache;
+    private final ScheduledExecutorService rateLimitScheduler;
+    private final Executor conversionExecutor;
+    private final PriorityDispatcher dispatcher;
+    /**
+     * Adapters created by {@link #warmUp(Retrofit, Class)} and not yet handed to Retrofit, which asks for the adapter
+     * once per service method and keeps it. The warmed adapters do not reference their {@link Retrofit}, so the weak
+     * keys let unused Retrofit instances be collected. Guarded by itself.
+     */
+    private final Map<Retrofit, Map<AdapterKey, CallAdapter<?, ?>>> warmed =
+            new WeakHashMap<Retrofit, Map<AdapterKey, CallAdapter<?, ?>>>();
 
-    private EitherCallAdapterFactory(Handler handler) {
-        this.handler = handler;
+    private EitherCallAdapterFactory(Builder builder) {
+        this.handler = builder.handler != null ? builder.handler : new Handler(Looper.getMainLooper());
+        this.metrics = builder.metrics;
+        this.alwaysPost = builder.alwaysPost;
+        this.snapshotCache = builder.snapshotCache;
+        this.rateLimitScheduler = builder.rateLimitScheduler;
+        this.conversionExecutor = builder.conversionExecutor;
+        this.dispatcher = builder.maxConcurrentCalls > 0 ?
+                new PriorityDispatcher(builder.maxConcurrentCalls, builder.priorityAgingNanos) : null;
     }
 
     public static EitherCallAdapterFactory create() {
-        return create(new Handler(Looper.getMainLooper()));
+        return builder().build();
     }
 
     public static EitherCallAdapterFactory create(Handler handler) {
-        return new EitherCallAdapterFactory(handler);
+        return builder().handler(handler).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Resolves the call adapter, the invocation policy and both converters of every {@link EitherCall} method of the
+     * {@code service} ahead of the first request, so that the first request does not pay for reflection and converter
+     * construction. The work is done on the calling thread, so call it from a background thread at startup.
+     *
+     * @param retrofit The Retrofit instance the {@code service} is created with. Must have this factory registered.
+     * @param service  The service interface.
+     *
+     * @throws IllegalArgumentException If Retrofit cannot resolve the call adapter or a converter.
+     */
+    public static void warmUp(Retrofit retrofit, Class<?> service) {
+        for (Method method : service.getMethods()) {
+            final Type returnType = method.getGenericReturnType();
+            if (getRawType(returnType) != EitherCall.class) {
+                continue;
+            }
+
+            final Annotation[] annotations = method.getAnnotations();
+            final CallAdapter<?, ?> adapter = retrofit.callAdapter(returnType, annotations);
+            if (adapter instanceof EitherCallAdapter) {
+                ((EitherCallAdapter<?, ?>) adapter).warmUp(retrofit, new AdapterKey(returnType, annotations));
+            }
+        }
     }
 
     public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
@@ -35,6 +104,12 @@ public final class EitherCallAdapterFactory extends CallAdapter.Factory {
         if (rawType != EitherCall.class) {
             return null;
         }
+
+        final CallAdapter<?, ?> warm = takeWarmed(retrofit, new AdapterKey(returnType, annotations));
+        if (warm != null) {
+            return warm;
+        }
+
         if (!(returnType instanceof ParameterizedType)) {
             throw new IllegalStateException("EitherCall return type must be parameterized"
                     + " as EitherCall<Foo> or EitherCall<? extends Foo>");
@@ -42,21 +117,118 @@ public final class EitherCallAdapterFactory extends CallAdapter.Factory {
         final Type leftType = getParameterUpperBound(0, (ParameterizedType) returnType);
         final Type rightType = getParameterUpperBound(1, (ParameterizedType) returnType);
 
-        final Converter<ResponseBody, ?> left = retrofit.responseBodyConverter(leftType, ANNOTATIONS);
-        final Converter<ResponseBody, ?> right = retrofit.responseBodyConverter(rightType, ANNOTATIONS);
+        final Converter<ResponseBody, ?> left = converter(retrofit, leftType, annotations);
+        final Converter<ResponseBody, ?> right = converter(retrofit, rightType, annotations);
+
+        final CompiledInvocationPolicy statusCode = annotated(annotations);
+
+        final EitherMetrics.Endpoint endpoint = metrics != null ?
+                metrics.endpoint(endpointName(returnType, annotations)) : EitherMetrics.Endpoint.NONE;
+
+        final EitherSnapshotCache snapshots = snapshotCache != null && isAnnotated(annotations, Snapshot.class) ?
+                snapshotCache : null;
+
+        final RateLimit rateLimit = find(annotations, RateLimit.class);
+        final RateLimiter rateLimiter = rateLimit != null ? RateLimiter.create(rateLimit) : null;
+
+        final Priority priority = find(annotations, Priority.class);
+
+        final CallOptions options = new CallOptions(handler, alwaysPost, endpoint, snapshots, rateLimiter,
+                rateLimitScheduler, conversionExecutor, dispatcher, priority != null ? priority.value() : 0);
+        @SuppressWarnings("unchecked") final CallAdapter<?, ?> adapter = new EitherCallAdapter<Object, Object>(
+                (Converter<ResponseBody, Object>) left, (Converter<ResponseBody, Object>) right, statusCode, options);
+
+        return adapter;
+    }
+
+    private CallAdapter<?, ?> takeWarmed(Retrofit retrofit, AdapterKey key) {
+        synchronized (warmed) {
+            final Map<AdapterKey, CallAdapter<?, ?>> adapters = warmed.get(retrofit);
+            if (adapters == null) {
+                return null;
+            }
+
+            final CallAdapter<?, ?> adapter = adapters.remove(key);
+            if (adapters.isEmpty()) {
+                warmed.remove(retrofit);
+            }
+
+            return adapter;
+        }
+    }
+
+    private void putWarmed(Retrofit retrofit, AdapterKey key, CallAdapter<?, ?> adapter) {
+        synchronized (warmed) {
+            Map<AdapterKey, CallAdapter<?, ?>> adapters = warmed.get(retrofit);
+            if (adapters == null) {
+                adapters = new HashMap<AdapterKey, CallAdapter<?, ?>>();
+                warmed.put(retrofit, adapters);
+            }
 
-        final InvocationPolicy statusCode = annotated(annotations);
+            adapters.put(key, adapter);
+        }
+    }
+
+    /**
+     * The body of the {@link Void} branch is never converted, so there is no need to look up the converter.
+     */
+    private static Converter<ResponseBody, ?> converter(Retrofit retrofit, Type type, Annotation[] annotations) {
+        if (type == Void.class) {
+            return DiscardingConverter.INSTANCE;
+        }
 
-        return new EitherCallAdapter(left, right, statusCode, handler);
+        return new LazyConverter<Object>(retrofit, type, annotations);
     }
 
-    private InvocationPolicy annotated(Annotation[] annotations) {
+    private CompiledInvocationPolicy annotated(Annotation[] annotations) {
         for (Annotation annotation : annotations) {
             if (annotation instanceof InvocationPolicy) {
-                return (InvocationPolicy) annotation;
+                return CompiledInvocationPolicy.compile((InvocationPolicy) annotation);
             }
         }
 
+        return DEFAULT_POLICY;
+    }
+
+    private static boolean isAnnotated(Annotation[] annotations, Class<? extends Annotation> type) {
+        return find(annotations, type) != null;
+    }
+
+    private static <A extends Annotation> A find(Annotation[] annotations, Class<A> type) {
+        for (Annotation annotation : annotations) {
+            if (type.isInstance(annotation)) {
+                return type.cast(annotation);
+            }
+        }
+
+        return null;
+    }
+
+    private static String endpointName(Type returnType, Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof GET) {
+                return "GET " + ((GET) annotation).value();
+            } else if (annotation instanceof POST) {
+                return "POST " + ((POST) annotation).value();
+            } else if (annotation instanceof PUT) {
+                return "PUT " + ((PUT) annotation).value();
+            } else if (annotation instanceof DELETE) {
+                return "DELETE " + ((DELETE) annotation).value();
+            } else if (annotation instanceof PATCH) {
+                return "PATCH " + ((PATCH) annotation).value();
+            } else if (annotation instanceof HEAD) {
+                return "HEAD " + ((HEAD) annotation).value();
+            } else if (annotation instanceof OPTIONS) {
+                return "OPTIONS " + ((OPTIONS) annotation).value();
+            } else if (annotation instanceof HTTP) {
+                return ((HTTP) annotation).method() + " " + ((HTTP) annotation).path();
+            }
+        }
+
+        return returnType.toString();
+    }
+
+    private static InvocationPolicy defaultPolicy() {
         return new InvocationPolicy() {
             @Override
             public Class<? extends Annotation> annotationType() {
@@ -82,21 +254,73 @@ public final class EitherCallAdapterFactory extends CallAdapter.Factory {
             public StatusCodeRange[] rightRange() {
                 return new StatusCodeRange[]{StatusCodeRange.CLIENT_ERROR, StatusCodeRange.SERVER_ERROR};
             }
+
+            @Override
+            public Header[] leftHeaders() {
+                return new Header[0];
+            }
+
+            @Override
+            public Header[] rightHeaders() {
+                return new Header[0];
+            }
         };
     }
 
+    private static final class AdapterKey {
+        private final Type returnType;
+        private final Annotation[] annotations;
+
+        private AdapterKey(Type returnType, Annotation[] annotations) {
+            this.returnType = returnType;
+            this.annotations = annotations;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AdapterKey)) {
+                return false;
+            }
+
+            final AdapterKey that = (AdapterKey) o;
+            return returnType.equals(that.returnType) &&
+                    Arrays.equals(annotations, that.annotations);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = returnType.hashCode();
+            result = 31 * result + Arrays.hashCode(annotations);
+            return result;
+        }
+    }
+
     private class EitherCallAdapter<L, R> implements CallAdapter<ResponseBody, EitherCall<L, R>> {
         private final Converter<ResponseBody, L> left;
         private final Converter<ResponseBody, R> right;
-        private final InvocationPolicy statusCode;
-        private final Handler handler;
+        private final CompiledInvocationPolicy statusCode;
+        private final CallOptions options;
 
         private EitherCallAdapter(Converter<ResponseBody, L> left, Converter<ResponseBody, R> right,
-                                  InvocationPolicy statusCode, Handler handler) {
+                                  CompiledInvocationPolicy statusCode, CallOptions options) {
             this.left = left;
             this.right = right;
             this.statusCode = statusCode;
-            this.handler = handler;
+            this.options = options;
+        }
+
+        void warmUp(Retrofit retrofit, AdapterKey key) {
+            if (left instanceof LazyConverter) {
+                ((LazyConverter<L>) left).delegate();
+            }
+            if (right instanceof LazyConverter) {
+                ((LazyConverter<R>) right).delegate();
+            }
+
+            putWarmed(retrofit, key, this);
         }
 
         public Type responseType() {
@@ -105,7 +329,130 @@ public final class EitherCallAdapterFactory extends CallAdapter.Factory {
 
         @Override
         public EitherCall<L, R> adapt(Call<ResponseBody> call) {
-            return new EitherCall<L, R>(call, left, right, statusCode, handler);
+            return new EitherCall<L, R>(call, left, right, statusCode, options);
+        }
+    }
+
+    public static final class Builder {
+        private Handler handler;
+        private EitherMetrics metrics;
+        private boolean alwaysPost;
+        private EitherSnapshotCache snapshotCache;
+        private ScheduledExecutorService rateLimitScheduler;
+        private Executor conversionExecutor;
+        private int maxConcurrentCalls;
+        private long priorityAgingNanos = TimeUnit.MILLISECONDS.toNanos(500);
+
+        private Builder() {
+        }
+
+        /**
+         * @param handler The handler the {@link EitherCallback} methods are posted to. Defaults to the handler of the
+         *                main looper.
+         *
+         * @return This builder.
+         */
+        public Builder handler(Handler handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        /**
+         * @param metrics The registry the outcomes and latencies of every call are recorded to. Metrics are not
+         *                collected by default.
+         *
+         * @return This builder.
+         */
+        public Builder metrics(EitherMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param alwaysPost Whether the {@link EitherCallback} methods must always be posted to the handler. By
+         *                   default they are invoked directly when the response is processed on the thread of the
+         *                   handler's looper, e.g. for cached or mocked responses, which saves a round trip through
+         *                   the message queue. Enable this if the callback relies on being invoked asynchronously.
+         *
+         * @return This builder.
+         */
+        public Builder alwaysPost(boolean alwaysPost) {
+            this.alwaysPost = alwaysPost;
+            return this;
+        }
+
+        /**
+         * @param snapshotCache The cache the responses of the service methods annotated with {@link Snapshot} are
+         *                      stored to and delivered from before the network response is received. Not set by
+         *                      default.
+         *
+         * @return This builder.
+         */
+        public Builder snapshotCache(EitherSnapshotCache snapshotCache) {
+            this.snapshotCache = snapshotCache;
+            return this;
+        }
+
+        /**
+         * @param rateLimitScheduler The scheduler the calls over the {@link RateLimit} are delayed with. When not set
+         *                           such calls fail immediately.
+         *
+         * @return This builder.
+         */
+        public Builder rateLimitScheduler(ScheduledExecutorService rateLimitScheduler) {
+            this.rateLimitScheduler = rateLimitScheduler;
+            return this;
+        }
+
+        /**
+         * @param conversionExecutor The executor the response bodies are converted on. By default the conversion
+         *                           happens on the OkHttp thread which received the response, so a large body holds
+         *                           the thread back from processing other responses. A bounded pool sized to the
+         *                           number of cores is recommended. When the executor rejects the task the body is
+         *                           converted on the OkHttp thread. Streamed frames are always converted on the
+         *                           OkHttp thread, because it reads them from the network.
+         *
+         * @return This builder.
+         */
+        public Builder conversionExecutor(Executor conversionExecutor) {
+            this.conversionExecutor = conversionExecutor;
+            return this;
+        }
+
+        /**
+         * @param maxConcurrentCalls The maximum number of calls created by the factory executed at once. The calls over
+         *                           the limit wait in the queue ordered by {@link Priority}. Not limited by default.
+         *
+         * @return This builder.
+         */
+        public Builder maxConcurrentCalls(int maxConcurrentCalls) {
+            if (maxConcurrentCalls < 1) {
+                throw new IllegalArgumentException("maxConcurrentCalls must be positive: " + maxConcurrentCalls);
+            }
+
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        /**
+         * @param time The waiting time worth a single priority level. The waiting call is ordered as if it had the
+         *             priority greater by one for every {@code time} it waits, so the low priority calls are not
+         *             starved. Defaults to 500 milliseconds.
+         * @param unit The unit of the {@code time}.
+         *
+         * @return This builder.
+         */
+        public Builder priorityAging(long time, TimeUnit unit) {
+            if (time < 1) {
+                throw new IllegalArgumentException("time must be positive: " + time);
+            }
+
+            this.priorityAgingNanos = unit.toNanos(time);
+            return this;
+        }
+
+        public EitherCallAdapterFactory build() {
+            return new EitherCallAdapterFactory(this);
         }
     }
 }
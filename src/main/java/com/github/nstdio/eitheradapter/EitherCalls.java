@@ -0,0 +1,216 @@
+package com.github.nstdio.eitheradapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Combinators executing several {@link EitherCall}s concurrently and delivering a single result. As soon as the
+ * result is decided the calls which are still in flight are canceled and their responses are discarded without
+ * conversion.
+ */
+public final class EitherCalls {
+
+    private EitherCalls() {
+        throw new AssertionError("No instances.");
+    }
+
+    /**
+     * Executes both calls concurrently. When both are routed to the first parameterized type their results are
+     * combined and passed to {@link EitherCallback#onLeft(Object)}. The first response routed to the second
+     * parameterized type or the first exception is passed to the {@code callback} immediately.
+     *
+     * @param a        The first call.
+     * @param b        The second call.
+     * @param combiner Combines the results of both calls.
+     * @param callback The callback.
+     * @param <A>      The first possible type of response of the first call.
+     * @param <B>      The first possible type of response of the second call.
+     * @param <T>      The combined type.
+     * @param <R>      The second possible type of response.
+     */
+    @SuppressWarnings("unchecked")
+    public static <A, B, T, R> void zip(EitherCall<A, R> a, EitherCall<B, R> b, final Combiner<A, B, T> combiner,
+                                        final EitherCallback<T, R> callback) {
+        final List<EitherCall<?, R>> calls = Arrays.<EitherCall<?, R>>asList(a, b);
+
+        collect(calls, new EitherCallback<List<Object>, R>() {
+            @Override
+            public void onLeft(List<Object> left) {
+                final T combined;
+                try {
+                    combined = combiner.combine((A) left.get(0), (B) left.get(1));
+                } catch (Exception e) {
+                    callback.onException(e);
+                    return;
+                }
+
+                callback.onLeft(combined);
+            }
+
+            @Override
+            public void onRight(R right) {
+                callback.onRight(right);
+            }
+
+            @Override
+            public void onException(Throwable t) {
+                callback.onException(t);
+            }
+        });
+    }
+
+    /**
+     * Executes all calls concurrently. When every call is routed to the first parameterized type their results are
+     * passed to {@link EitherCallback#onLeft(Object)} in the order of {@code calls}. The first response routed to the
+     * second parameterized type or the first exception is passed to the {@code callback} immediately.
+     *
+     * @param calls    The calls.
+     * @param callback The callback.
+     * @param <L>      The first possible type of response.
+     * @param <R>      The second possible type of response.
+     */
+    @SuppressWarnings("unchecked")
+    public static <L, R> void all(List<? extends EitherCall<L, R>> calls, final EitherCallback<List<L>, R> callback) {
+        collect(calls, (EitherCallback<List<Object>, R>) (EitherCallback<?, R>) callback);
+    }
+
+    /**
+     * Executes all calls concurrently. The first response routed to the first parameterized type is passed to
+     * {@link EitherCallback#onLeft(Object)}. If none of the calls is routed to the first parameterized type, either
+     * the first exception is passed to {@link EitherCallback#onException(Throwable)} or, when there was no exception,
+     * the results of all calls are passed to {@link EitherCallback#onRight(Object)} in the order of {@code calls}.
+     *
+     * @param calls    The calls.
+     * @param callback The callback.
+     * @param <L>      The first possible type of response.
+     * @param <R>      The second possible type of response.
+     */
+    public static <L, R> void firstLeft(final List<? extends EitherCall<L, R>> calls,
+                                        final EitherCallback<L, List<R>> callback) {
+        final int size = calls.size();
+        if (size == 0) {
+            callback.onRight(Collections.<R>emptyList());
+            return;
+        }
+
+        final AtomicReferenceArray<R> rights = new AtomicReferenceArray<R>(size);
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+        final AtomicInteger remaining = new AtomicInteger(size);
+        final AtomicBoolean done = new AtomicBoolean();
+
+        for (int i = 0; i < size; i++) {
+            final int index = i;
+
+            calls.get(i).callback(new EitherCallback<L, R>() {
+                @Override
+                public void onLeft(L left) {
+                    if (done.compareAndSet(false, true)) {
+                        cancelOthers(calls, index);
+                        callback.onLeft(left);
+                    }
+                }
+
+                @Override
+                public void onRight(R right) {
+                    rights.set(index, right);
+                    lost();
+                }
+
+                @Override
+                public void onException(Throwable t) {
+                    exception.compareAndSet(null, t);
+                    lost();
+                }
+
+                private void lost() {
+                    if (remaining.decrementAndGet() == 0 && done.compareAndSet(false, true)) {
+                        final Throwable t = exception.get();
+                        if (t != null) {
+                            callback.onException(t);
+                        } else {
+                            callback.onRight(toList(rights));
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private static <R> void collect(final List<? extends EitherCall<?, R>> calls,
+                                    final EitherCallback<List<Object>, R> callback) {
+        final int size = calls.size();
+        if (size == 0) {
+            callback.onLeft(Collections.emptyList());
+            return;
+        }
+
+        final AtomicReferenceArray<Object> lefts = new AtomicReferenceArray<Object>(size);
+        final AtomicInteger remaining = new AtomicInteger(size);
+        final AtomicBoolean done = new AtomicBoolean();
+
+        for (int i = 0; i < size; i++) {
+            final int index = i;
+
+            @SuppressWarnings("unchecked") final EitherCall<Object, R> call = (EitherCall<Object, R>) calls.get(i);
+            call.callback(new EitherCallback<Object, R>() {
+                @Override
+                public void onLeft(Object left) {
+                    lefts.set(index, left);
+                    if (remaining.decrementAndGet() == 0 && done.compareAndSet(false, true)) {
+                        callback.onLeft(toList(lefts));
+                    }
+                }
+
+                @Override
+                public void onRight(R right) {
+                    if (done.compareAndSet(false, true)) {
+                        cancelOthers(calls, index);
+                        callback.onRight(right);
+                    }
+                }
+
+                @Override
+                public void onException(Throwable t) {
+                    if (done.compareAndSet(false, true)) {
+                        cancelOthers(calls, index);
+                        callback.onException(t);
+                    }
+                }
+            });
+        }
+    }
+
+    private static void cancelOthers(List<? extends EitherCall<?, ?>> calls, int winner) {
+        for (int i = 0; i < calls.size(); i++) {
+            if (i != winner) {
+                calls.get(i).cancel();
+            }
+        }
+    }
+
+    private static <T> List<T> toList(AtomicReferenceArray<T> array) {
+        final List<T> list = new ArrayList<T>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.get(i));
+        }
+
+        return list;
+    }
+
+    /**
+     * Combines the results of two calls.
+     *
+     * @param <A> The first possible type of response of the first call.
+     * @param <B> The first possible type of response of the second call.
+     * @param <T> The combined type.
+     */
+    public interface Combiner<A, B, T> {
+        T combine(A a, B b);
+    }
+}
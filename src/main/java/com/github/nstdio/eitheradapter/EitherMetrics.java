@@ -0,0 +1,358 @@
+package com.github.nstdio.eitheradapter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects the outcome counters and latency histograms of every {@link EitherCall} created by the factory it is
+ * registered with. Endpoints are keyed by the HTTP method and the relative URL of the service method, e.g.
+ * {@code GET /users/{id}}.
+ * <p>
+ * Recording is lock-free and does not allocate, the {@link #snapshot()} is meant to be taken periodically and exported
+ * to the monitoring system.
+ *
+ * @see EitherCallAdapterFactory.Builder#metrics(EitherMetrics)
+ */
+public final class EitherMetrics {
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<String, Endpoint>();
+
+    /**
+     * @return The point-in-time copy of the metrics of every endpoint which was called at least once.
+     */
+    public Map<String, EndpointSnapshot> snapshot() {
+        final Map<String, EndpointSnapshot> snapshot = new LinkedHashMap<String, EndpointSnapshot>();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    Endpoint endpoint(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            endpoint = new Endpoint();
+            final Endpoint previous = endpoints.putIfAbsent(name, endpoint);
+            if (previous != null) {
+                endpoint = previous;
+            }
+        }
+
+        return endpoint;
+    }
+
+    /**
+     * The metrics of a single endpoint.
+     */
+    static class Endpoint {
+        /**
+         * Used when metrics collection is not enabled.
+         */
+        static final Endpoint NONE = new Endpoint() {
+            @Override
+            void left() {
+            }
+
+            @Override
+            void right() {
+            }
+
+            @Override
+            void exception() {
+            }
+
+            @Override
+            void unmatched() {
+            }
+
+            @Override
+            void conversionFailure() {
+            }
+
+            @Override
+            void network(long nanos) {
+            }
+
+            @Override
+            void conversion(long nanos) {
+            }
+        };
+
+        private final StripedCounter left = new StripedCounter();
+        private final StripedCounter right = new StripedCounter();
+        private final StripedCounter exception = new StripedCounter();
+        private final StripedCounter unmatched = new StripedCounter();
+        private final StripedCounter conversionFailure = new StripedCounter();
+        private final Histogram network = new Histogram();
+        private final Histogram conversion = new Histogram();
+
+        void left() {
+            left.increment();
+        }
+
+        void right() {
+            right.increment();
+        }
+
+        void exception() {
+            exception.increment();
+        }
+
+        void unmatched() {
+            unmatched.increment();
+        }
+
+        void conversionFailure() {
+            conversionFailure.increment();
+        }
+
+        void network(long nanos) {
+            network.record(nanos);
+        }
+
+        void conversion(long nanos) {
+            conversion.record(nanos);
+        }
+
+        EndpointSnapshot snapshot() {
+            return new EndpointSnapshot(left.sum(), right.sum(), exception.sum(), unmatched.sum(),
+                    conversionFailure.sum(), network.snapshot(), conversion.snapshot());
+        }
+    }
+
+    /**
+     * The counter which spreads increments from different threads over separate cache lines.
+     */
+    static final class StripedCounter {
+        /**
+         * The distance between two stripes in array elements, so that each of them is on its own cache line.
+         */
+        private static final int PADDING = 8;
+        private static final int STRIPES = stripes();
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+        private static int stripes() {
+            final int processors = Runtime.getRuntime().availableProcessors();
+            int stripes = 1;
+            while (stripes < processors) {
+                stripes <<= 1;
+            }
+
+            return stripes;
+        }
+
+        void increment() {
+            final int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+            cells.incrementAndGet(stripe * PADDING);
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i * PADDING);
+            }
+
+            return sum;
+        }
+    }
+
+    /**
+     * The histogram with power of two buckets. The bucket {@code i} counts the values in range
+     * {@code [2^(i-1), 2^i)}, the bucket {@code 0} counts zeros.
+     */
+    static final class Histogram {
+        static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos) {
+            buckets.incrementAndGet(bucket(nanos));
+        }
+
+        static int bucket(long value) {
+            return value <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+        }
+
+        HistogramSnapshot snapshot() {
+            final long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+            }
+
+            return new HistogramSnapshot(counts);
+        }
+    }
+
+    /**
+     * The point-in-time copy of the metrics of an endpoint.
+     */
+    public static final class EndpointSnapshot {
+        private final long left;
+        private final long right;
+        private final long exception;
+        private final long unmatched;
+        private final long conversionFailure;
+        private final HistogramSnapshot network;
+        private final HistogramSnapshot conversion;
+
+        EndpointSnapshot(long left, long right, long exception, long unmatched, long conversionFailure,
+                         HistogramSnapshot network, HistogramSnapshot conversion) {
+            this.left = left;
+            this.right = right;
+            this.exception = exception;
+            this.unmatched = unmatched;
+            this.conversionFailure = conversionFailure;
+            this.network = network;
+            this.conversion = conversion;
+        }
+
+        /**
+         * @return The number of responses routed to the first parameterized type, including the ones counted by
+         * {@link #conversionFailure()}.
+         */
+        public long left() {
+            return left;
+        }
+
+        /**
+         * @return The number of responses routed to the second parameterized type, including the ones counted by
+         * {@link #conversionFailure()}.
+         */
+        public long right() {
+            return right;
+        }
+
+        /**
+         * @return The number of calls failed before the response was received.
+         */
+        public long exception() {
+            return exception;
+        }
+
+        /**
+         * @return The number of responses with status code not matched by the invocation policy.
+         */
+        public long unmatched() {
+            return unmatched;
+        }
+
+        /**
+         * @return The number of responses routed to either type which the converter failed to convert. Such responses
+         * are delivered to {@link EitherCallback#onException(Throwable)}.
+         */
+        public long conversionFailure() {
+            return conversionFailure;
+        }
+
+        /**
+         * @return The time from the call execution to the receipt of the response.
+         */
+        public HistogramSnapshot network() {
+            return network;
+        }
+
+        /**
+         * @return The time spent in the converter.
+         */
+        public HistogramSnapshot conversion() {
+            return conversion;
+        }
+
+        @Override
+        public String toString() {
+            return "EndpointSnapshot{" +
+                    "left=" + left +
+                    ", right=" + right +
+                    ", exception=" + exception +
+                    ", unmatched=" + unmatched +
+                    ", conversionFailure=" + conversionFailure +
+                    ", network=" + network +
+                    ", conversion=" + conversion +
+                    '}';
+        }
+    }
+
+    /**
+     * The point-in-time copy of a latency histogram. Values are in nanoseconds.
+     */
+    public static final class HistogramSnapshot {
+        private final long[] counts;
+        private final long count;
+
+        HistogramSnapshot(long[] counts) {
+            this.counts = counts;
+
+            long count = 0;
+            for (long c : counts) {
+                count += c;
+            }
+            this.count = count;
+        }
+
+        /**
+         * @return The number of recorded values.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return The number of buckets.
+         */
+        public int buckets() {
+            return counts.length;
+        }
+
+        /**
+         * @param bucket The bucket index.
+         *
+         * @return The number of values in range {@code [2^(bucket-1), 2^bucket)}.
+         */
+        public long bucketCount(int bucket) {
+            return counts[bucket];
+        }
+
+        /**
+         * @param percentile The percentile in range {@code [0, 100]}.
+         *
+         * @return The upper bound of the bucket the percentile falls in or {@code 0} if nothing was recorded.
+         */
+        public long percentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be in range [0, 100]: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+
+            return upperBound(counts.length - 1);
+        }
+
+        private static long upperBound(int bucket) {
+            return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+        }
+
+        @Override
+        public String toString() {
+            return "HistogramSnapshot{" +
+                    "count=" + count +
+                    ", p50=" + percentile(50) +
+                    ", p99=" + percentile(99) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.github.nstdio.eitheradapter;
+
+import okhttp3.Headers;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Iterates over the pages of a paginated endpoint, requesting the next page while the current one is consumed. Pages
+ * are requested one after another, because the location of the next page is usually known only from the previous one,
+ * but up to {@code prefetch} pages are loaded ahead of the consumer. The number of pages that are received but not yet
+ * consumed together with the page being loaded never exceeds {@code prefetch}.
+ * <p>
+ * The iteration stops on the first page which is routed to the second parameterized type or when any exception
+ * occurs. Use {@link #right()} and {@link #exception()} to determine why {@link #hasNext()} returned {@code false}.
+ * <p>
+ * {@link #hasNext()} blocks until the next page is received, so the pager must not be consumed on the thread the
+ * {@link EitherCallback} methods are delivered on.
+ *
+ * @param <L> The type of the page.
+ * @param <R> The second possible type of response, which terminates the iteration.
+ */
+public final class EitherPager<L, R> implements Iterator<L> {
+    private static final Object NULL_PAGE = new Object();
+    private static final Object END = new Object();
+
+    private final PageLoader<L, R> loader;
+    private final int prefetch;
+    private final BlockingQueue<Object> pages = new LinkedBlockingQueue<Object>();
+    private final Object lock = new Object();
+
+    /**
+     * The number of pages received but not yet consumed including the page being loaded. Guarded by {@link #lock}.
+     */
+    private int outstanding;
+    private boolean loading;
+    private boolean done;
+    private L last;
+    private Headers lastHeaders;
+    private EitherCall<L, R> current;
+
+    private Object head;
+    private boolean finished;
+    private volatile R right;
+    private volatile Throwable exception;
+
+    private EitherPager(PageLoader<L, R> loader, int prefetch) {
+        this.loader = loader;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Creates the pager and immediately requests the first page.
+     *
+     * @param loader   Supplies the call for each page.
+     * @param prefetch The maximum number of pages held by the pager. Must be positive.
+     * @param <L>      The type of the page.
+     * @param <R>      The second possible type of response.
+     *
+     * @return The pager.
+     */
+    public static <L, R> EitherPager<L, R> create(PageLoader<L, R> loader, int prefetch) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("prefetch must be positive: " + prefetch);
+        }
+
+        final EitherPager<L, R> pager = new EitherPager<L, R>(loader, prefetch);
+        pager.outstanding = 1;
+        pager.loading = true;
+        pager.load(loader.first());
+
+        return pager;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (head != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+
+        try {
+            final Object page = pages.take();
+            if (page == END) {
+                finished = true;
+                return false;
+            }
+
+            head = page;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            finished = true;
+            return false;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public L next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Object page = head;
+        head = null;
+
+        synchronized (lock) {
+            outstanding--;
+        }
+        loadNext();
+
+        return page == NULL_PAGE ? null : (L) page;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Stops loading pages and cancels the call in flight. Pages that are already received are still returned.
+     */
+    public void cancel() {
+        final EitherCall<L, R> call;
+        synchronized (lock) {
+            if (done) {
+                return;
+            }
+
+            call = current;
+            finish();
+        }
+
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    /**
+     * @return The response which terminated the iteration or {@code null} if iteration terminated in any other way.
+     */
+    public R right() {
+        return right;
+    }
+
+    /**
+     * @return The exception which terminated the iteration or {@code null} if iteration terminated in any other way.
+     */
+    public Throwable exception() {
+        return exception;
+    }
+
+    /**
+     * Executes the {@code call} of the page, which is already counted as outstanding and loading.
+     */
+    private void load(final EitherCall<L, R> call) {
+        synchronized (lock) {
+            if (done) {
+                // Canceled while the loader was supplying the call.
+                return;
+            }
+            if (call == null) {
+                finish();
+                return;
+            }
+
+            current = call;
+        }
+
+        try {
+            call.callback(new EitherCallback<L, R>() {
+                @Override
+                public void onLeft(L left) {
+                    synchronized (lock) {
+                        if (done) {
+                            return;
+                        }
+
+                        pages.add(left == null ? NULL_PAGE : left);
+                        loading = false;
+                        current = null;
+                        last = left;
+                        lastHeaders = call.headers();
+                    }
+
+                    loadNext();
+                }
+
+                @Override
+                public void onRight(R r) {
+                    synchronized (lock) {
+                        if (done) {
+                            return;
+                        }
+
+                        right = r;
+                        finish();
+                    }
+                }
+
+                @Override
+                public void onException(Throwable t) {
+                    fail(t);
+                }
+            });
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Requests the next page if the prefetch depth allows. The loader and the call are invoked outside of the
+     * {@link #lock}, a loader that throws terminates the iteration with the exception.
+     */
+    private void loadNext() {
+        final L previous;
+        final Headers headers;
+        synchronized (lock) {
+            if (done || loading || outstanding >= prefetch) {
+                return;
+            }
+
+            outstanding++;
+            loading = true;
+            previous = last;
+            headers = lastHeaders;
+        }
+
+        final EitherCall<L, R> call;
+        try {
+            call = loader.next(previous, headers);
+        } catch (RuntimeException e) {
+            fail(e);
+            return;
+        }
+
+        load(call);
+    }
+
+    private void fail(Throwable t) {
+        synchronized (lock) {
+            if (done) {
+                return;
+            }
+
+            exception = t;
+            finish();
+        }
+    }
+
+    /**
+     * Guarded by {@link #lock}.
+     */
+    private void finish() {
+        done = true;
+        current = null;
+        pages.add(END);
+    }
+
+    /**
+     * Supplies the {@link EitherCall} for each page.
+     *
+     * @param <L> The type of the page.
+     * @param <R> The second possible type of response.
+     */
+    public interface PageLoader<L, R> {
+
+        /**
+         * @return The call for the first page or {@code null} if there are no pages.
+         */
+        EitherCall<L, R> first();
+
+        /**
+         * @param previous The previous page.
+         * @param headers  The response headers of the previous page, e.g. to follow the {@code Link} header.
+         *
+         * @return The call for the page following the {@code previous} or {@code null} if {@code previous} is the
+         * last page.
+         */
+        EitherCall<L, R> next(L previous, Headers headers);
+    }
+}
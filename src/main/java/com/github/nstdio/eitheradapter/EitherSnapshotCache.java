@@ -0,0 +1,296 @@
+package com.github.nstdio.eitheradapter;
+
+import com.github.nstdio.eitheradapter.annotation.Snapshot;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The persistent cache of the last response body routed to the first parameterized type of the service methods
+ * annotated with {@link Snapshot}. The cache is an append-only file of records, an in-memory index points to the
+ * latest record of every key. Every record keeps the content type of the body, so the charset survives the replay. Snapshots are read through a memory mapping and streamed to the converter, so the file is
+ * never copied to the heap as a whole.
+ * <p>
+ * The file is compacted on {@link #open(File)} and while snapshots are stored once most of it is occupied by outdated
+ * records. Snapshots are read on a single background thread owned by the cache, unless the factory has a conversion
+ * executor.
+ *
+ * @see EitherCallAdapterFactory.Builder#snapshotCache(EitherSnapshotCache)
+ */
+public final class EitherSnapshotCache implements Closeable {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int CHUNK_SIZE = 8192;
+    /**
+     * The file smaller than that is never compacted, whatever the share of outdated records.
+     */
+    static final long COMPACTION_MIN_SIZE = 1024 * 1024;
+
+    private final File file;
+    private final Map<String, Entry> index = new HashMap<String, Entry>();
+    private final ExecutorService reader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "EitherSnapshotCache");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private long size;
+    private long liveBytes;
+
+    private EitherSnapshotCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens or creates the cache file. The file should be opened once per process.
+     *
+     * @param file The cache file.
+     *
+     * @return The cache.
+     *
+     * @throws IOException If the file cannot be opened or read.
+     */
+    public static EitherSnapshotCache open(File file) throws IOException {
+        final EitherSnapshotCache cache = new EitherSnapshotCache(file);
+        cache.openFile();
+        cache.readIndex();
+
+        if (cache.shouldCompact()) {
+            cache.compact();
+        }
+
+        return cache;
+    }
+
+    /**
+     * Runs the snapshot reading task on the thread of the cache.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException If the cache is closed.
+     */
+    void execute(Runnable task) {
+        reader.execute(task);
+    }
+
+    /**
+     * @param key The key.
+     *
+     * @return The body of the latest snapshot stored under the {@code key} with the stored content type or
+     * {@code null} if there is no one.
+     *
+     * @throws IOException If the file cannot be mapped.
+     */
+    synchronized ResponseBody get(String key) throws IOException {
+        final Entry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length);
+        return ResponseBody.create(entry.contentType, entry.length, Okio.buffer(new ByteBufferSource(mapped)));
+    }
+
+    /**
+     * Appends the snapshot to the file.
+     *
+     * @param key         The key.
+     * @param contentType The content type of the body, might be {@code null}.
+     * @param value       The body bytes.
+     *
+     * @throws IOException If the snapshot cannot be written.
+     */
+    synchronized void put(String key, MediaType contentType, byte[] value) throws IOException {
+        final byte[] keyBytes = key.getBytes(UTF_8);
+        final byte[] typeBytes = contentType != null ? contentType.toString().getBytes(UTF_8) : new byte[0];
+        final int header = 12 + keyBytes.length + typeBytes.length;
+        final ByteBuffer record = ByteBuffer.allocate(header + value.length);
+        record.putInt(keyBytes.length).put(keyBytes)
+                .putInt(typeBytes.length).put(typeBytes)
+                .putInt(value.length).put(value);
+        record.flip();
+
+        final long offset = size;
+        while (record.hasRemaining()) {
+            channel.write(record, size + record.position());
+        }
+
+        size += record.limit();
+        index(key, new Entry(offset + header, value.length, contentType));
+
+        if (shouldCompact()) {
+            compact();
+        }
+    }
+
+    /**
+     * @return The size of the file in bytes.
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        reader.shutdown();
+        raf.close();
+    }
+
+    private boolean shouldCompact() {
+        return size > 2 * liveBytes && size > COMPACTION_MIN_SIZE;
+    }
+
+    private void openFile() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        size = channel.size();
+    }
+
+    private void readIndex() throws IOException {
+        if (size == 0) {
+            return;
+        }
+
+        final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+        long valid = 0;
+        while (mapped.remaining() >= 4) {
+            final int keyLength = mapped.getInt();
+            if (keyLength < 0 || mapped.remaining() < keyLength + 4) {
+                break;
+            }
+
+            final byte[] keyBytes = new byte[keyLength];
+            mapped.get(keyBytes);
+
+            final int typeLength = mapped.getInt();
+            if (typeLength < 0 || mapped.remaining() < typeLength + 4) {
+                break;
+            }
+
+            final byte[] typeBytes = new byte[typeLength];
+            mapped.get(typeBytes);
+
+            final int valueLength = mapped.getInt();
+            if (valueLength < 0 || mapped.remaining() < valueLength) {
+                break;
+            }
+
+            final MediaType contentType = typeLength != 0 ? MediaType.parse(new String(typeBytes, UTF_8)) : null;
+            index(new String(keyBytes, UTF_8), new Entry(mapped.position(), valueLength, contentType));
+            mapped.position(mapped.position() + valueLength);
+            valid = mapped.position();
+        }
+
+        if (valid != size) {
+            // The tail is an incomplete record left by the interrupted write.
+            channel.truncate(valid);
+            size = valid;
+        }
+    }
+
+    private void index(String key, Entry entry) {
+        final Entry previous = index.put(key, entry);
+        if (previous != null) {
+            liveBytes -= previous.length;
+        }
+        liveBytes += entry.length;
+    }
+
+    private void compact() throws IOException {
+        final File tmp = new File(file.getPath() + ".tmp");
+        final EitherSnapshotCache compacted = new EitherSnapshotCache(tmp);
+        compacted.openFile();
+        compacted.channel.truncate(0);
+        compacted.size = 0;
+
+        try {
+            for (Map.Entry<String, Entry> e : index.entrySet()) {
+                final Entry entry = e.getValue();
+                final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length);
+                final byte[] value = new byte[entry.length];
+                mapped.get(value);
+
+                compacted.put(e.getKey(), entry.contentType, value);
+            }
+
+            compacted.channel.force(true);
+        } finally {
+            compacted.close();
+        }
+
+        raf.close();
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file + " with the compacted " + tmp);
+        }
+
+        index.clear();
+        liveBytes = 0;
+        openFile();
+        readIndex();
+    }
+
+    private static final class Entry {
+        final long offset;
+        final int length;
+        final MediaType contentType;
+
+        Entry(long offset, int length, MediaType contentType) {
+            this.offset = offset;
+            this.length = length;
+            this.contentType = contentType;
+        }
+    }
+
+    /**
+     * Streams the mapped region in small chunks.
+     */
+    private static final class ByteBufferSource implements Source {
+        private final ByteBuffer buffer;
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+
+        ByteBufferSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int count = (int) Math.min(Math.min(byteCount, buffer.remaining()), chunk.length);
+            buffer.get(chunk, 0, count);
+            sink.write(chunk, 0, count);
+
+            return count;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
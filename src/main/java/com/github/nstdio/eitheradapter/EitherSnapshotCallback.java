@@ -0,0 +1,23 @@
+package com.github.nstdio.eitheradapter;
+
+/**
+ * {@linkplain EitherSnapshotCallback} additionally receives the snapshot of the service method annotated with
+ * {@link com.github.nstdio.eitheradapter.annotation.Snapshot}. The snapshot is never passed to {@link #onLeft(Object)},
+ * so as with {@link EitherCallback} only one of {@link #onLeft(Object)}, {@link #onRight(Object)} and
+ * {@link #onException(Throwable)} is called per request.
+ *
+ * @param <L> The first possible type of response.
+ * @param <R> The second possible type of response.
+ *
+ * @see EitherSnapshotCache
+ */
+public interface EitherSnapshotCallback<L, R> extends EitherCallback<L, R> {
+
+    /**
+     * Called at most once per request with the last stored response routed to the first parameterized type, if it is
+     * available before the fresh result. Never called after any other method of the callback.
+     *
+     * @param snapshot The stale first possible response.
+     */
+    void onSnapshot(L snapshot);
+}
@@ -0,0 +1,18 @@
+package com.github.nstdio.eitheradapter;
+
+/**
+ * {@linkplain EitherStreamCallback} is used to receive the frames of a streamed response. Unlike {@link EitherCallback}
+ * the {@link #onLeft(Object)} is called once for every frame.
+ *
+ * @param <L> The type of a single frame.
+ * @param <R> The second possible type of response.
+ *
+ * @see EitherCall#stream(StreamFormat, int, EitherStreamCallback)
+ */
+public interface EitherStreamCallback<L, R> extends EitherCallback<L, R> {
+
+    /**
+     * Called after the last frame was passed to {@link #onLeft(Object)} and the stream ended normally.
+     */
+    void onComplete();
+}
@@ -0,0 +1,53 @@
+package com.github.nstdio.eitheradapter;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Defers the {@link Retrofit#responseBodyConverter(Type, Annotation[])} lookup until the first response which routes
+ * to the branch. The resolved converter is memoized, so the lookup happens at most once per service method and branch.
+ * Once resolved the converter no longer references the {@link Retrofit} instance.
+ *
+ * @param <T> The type the body is converted to.
+ */
+final class LazyConverter<T> implements Converter<ResponseBody, T> {
+    /**
+     * Cleared once the converter is resolved. Guarded by this.
+     */
+    private Retrofit retrofit;
+    private final Type type;
+    private final Annotation[] annotations;
+    private volatile Converter<ResponseBody, T> delegate;
+
+    LazyConverter(Retrofit retrofit, Type type, Annotation[] annotations) {
+        this.retrofit = retrofit;
+        this.type = type;
+        this.annotations = annotations;
+    }
+
+    @Override
+    public T convert(ResponseBody value) throws IOException {
+        return delegate().convert(value);
+    }
+
+    Converter<ResponseBody, T> delegate() {
+        Converter<ResponseBody, T> converter = delegate;
+        if (converter == null) {
+            synchronized (this) {
+                converter = delegate;
+                if (converter == null) {
+                    converter = retrofit.responseBodyConverter(type, annotations);
+                    delegate = converter;
+                    retrofit = null;
+                }
+            }
+        }
+
+        return converter;
+    }
+}
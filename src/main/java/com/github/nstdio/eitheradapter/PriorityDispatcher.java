@@ -0,0 +1,110 @@
+package com.github.nstdio.eitheradapter;
+
+import java.util.PriorityQueue;
+
+/**
+ * Limits the number of concurrently executed calls and starts the waiting ones in the order of priority. To prevent
+ * starvation every priority level is worth a fixed amount of waiting time: a call is ordered as if it was submitted
+ * {@code priority * aging} nanoseconds earlier. Thus a low priority call is overtaken by the calls submitted later only
+ * for a bounded time.
+ */
+final class PriorityDispatcher {
+    private final int maxConcurrent;
+    private final long agingNanos;
+    private final PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+    private int running;
+    private long sequence;
+
+    PriorityDispatcher(int maxConcurrent, long agingNanos) {
+        this.maxConcurrent = maxConcurrent;
+        this.agingNanos = agingNanos;
+    }
+
+    /**
+     * Starts the {@code job} right away or once the running calls are {@link #finished()}. The job which has started
+     * must eventually call {@link #finished()}.
+     */
+    void submit(int priority, Job job) {
+        synchronized (this) {
+            if (running >= maxConcurrent) {
+                queue.add(new Entry(System.nanoTime() - priority * agingNanos, sequence++, job));
+                return;
+            }
+
+            running++;
+        }
+
+        if (!job.start()) {
+            finished();
+        }
+    }
+
+    /**
+     * Releases the slot of the finished call and starts the waiting ones while there are free slots. The jobs which do
+     * not start, e.g. because their calls were canceled while waiting, give the slot back within the same loop, so a
+     * long run of them neither recurses nor blocks the calling thread for more than the time of polling the queue.
+     */
+    void finished() {
+        synchronized (this) {
+            running--;
+        }
+
+        while (true) {
+            final Job next;
+            synchronized (this) {
+                if (running >= maxConcurrent) {
+                    return;
+                }
+
+                final Entry entry = queue.poll();
+                if (entry == null) {
+                    return;
+                }
+
+                next = entry.job;
+                running++;
+            }
+
+            if (!next.start()) {
+                synchronized (this) {
+                    running--;
+                }
+            }
+        }
+    }
+
+    /**
+     * The call waiting for a slot.
+     */
+    interface Job {
+        /**
+         * Starts the call without blocking and without calling back into the dispatcher.
+         *
+         * @return {@code false} if the call was not started, e.g. because it is canceled. The slot is released
+         * immediately.
+         */
+        boolean start();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final long deadline;
+        private final long sequence;
+        private final Job job;
+
+        Entry(long deadline, long sequence, Job job) {
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.job = job;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            final long diff = deadline - o.deadline;
+            if (diff != 0) {
+                return diff < 0 ? -1 : 1;
+            }
+
+            return sequence < o.sequence ? -1 : sequence == o.sequence ? 0 : 1;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.nstdio.eitheradapter;
+
+/**
+ * Passed to {@link EitherCallback#onException(Throwable)} when the call of the service method annotated with
+ * {@link com.github.nstdio.eitheradapter.annotation.RateLimit} is over the limit and the factory has no rate limit
+ * scheduler to delay it. The call is not executed, so it is safe to retry later.
+ */
+public final class RateLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    RateLimitExceededException() {
+        super("Rate limit exceeded.");
+    }
+}
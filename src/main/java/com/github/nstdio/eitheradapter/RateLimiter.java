@@ -0,0 +1,68 @@
+package com.github.nstdio.eitheradapter;
+
+import com.github.nstdio.eitheradapter.annotation.RateLimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The token bucket expressed as the generic cell rate algorithm: the single atomic holds the theoretical arrival time
+ * of the next permit, so acquiring a permit is one compare-and-set without any lock.
+ */
+final class RateLimiter {
+    /**
+     * The time it takes to replenish a single permit in nanoseconds.
+     */
+    private final long interval;
+    /**
+     * How far ahead of the theoretical arrival time a permit might be taken, i.e. the burst.
+     */
+    private final long tolerance;
+    private final AtomicLong arrival;
+
+    private RateLimiter(long interval, int burst) {
+        this.interval = interval;
+        this.tolerance = interval * (burst - 1);
+        this.arrival = new AtomicLong(System.nanoTime());
+    }
+
+    static RateLimiter create(RateLimit rateLimit) {
+        final double permitsPerSecond = rateLimit.permitsPerSecond();
+        final int burst = rateLimit.burst();
+
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalStateException("RateLimit permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalStateException("RateLimit burst must be positive: " + burst);
+        }
+
+        return new RateLimiter(Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond)), burst);
+    }
+
+    /**
+     * Takes the permit.
+     *
+     * @param allowDelay Whether the permit might be reserved in the future.
+     *
+     * @return The number of nanoseconds to wait before the permit might be used or {@code -1} if the permit is not
+     * available now and {@code allowDelay} is {@code false}.
+     */
+    long acquire(boolean allowDelay) {
+        final long now = System.nanoTime();
+
+        for (; ; ) {
+            final long current = arrival.get();
+            final long base = current - now > 0 ? current : now;
+            final long wait = base - now - tolerance;
+
+            if (wait > 0 && !allowDelay) {
+                return -1;
+            }
+
+            if (arrival.compareAndSet(current, base + interval)) {
+                return wait > 0 ? wait : 0;
+            }
+        }
+    }
+}
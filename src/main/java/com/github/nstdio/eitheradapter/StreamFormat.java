@@ -0,0 +1,83 @@
+package com.github.nstdio.eitheradapter;
+
+import okio.BufferedSource;
+
+import java.io.IOException;
+
+/**
+ * The format of the frames in a streamed response body.
+ *
+ * @see EitherCall#stream(StreamFormat, int, EitherStreamCallback)
+ */
+public enum StreamFormat {
+    /**
+     * Newline-delimited JSON. Every non-blank line is a frame.
+     */
+    NDJSON {
+        @Override
+        String nextFrame(BufferedSource source) throws IOException {
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (!line.trim().isEmpty()) {
+                    return line;
+                }
+            }
+
+            return null;
+        }
+    },
+
+    /**
+     * Server-Sent Events. The {@code data} fields of an event joined by the line feed are a frame. All other fields
+     * and comments are ignored.
+     */
+    SSE {
+        @Override
+        String nextFrame(BufferedSource source) throws IOException {
+            StringBuilder data = null;
+
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (line.isEmpty()) {
+                    if (data != null) {
+                        return data.toString();
+                    }
+                    continue;
+                }
+
+                if (!line.startsWith("data")) {
+                    continue;
+                }
+
+                final int colon = line.indexOf(':');
+                if (colon == -1 && line.length() != 4 || colon != -1 && colon != 4) {
+                    continue;
+                }
+
+                int valueStart = colon == -1 ? line.length() : colon + 1;
+                if (valueStart < line.length() && line.charAt(valueStart) == ' ') {
+                    valueStart++;
+                }
+
+                if (data == null) {
+                    data = new StringBuilder();
+                } else {
+                    data.append('\n');
+                }
+                data.append(line, valueStart, line.length());
+            }
+
+            // An event which is not terminated by a blank line is incomplete and must be discarded.
+            return null;
+        }
+    };
+
+    /**
+     * @param source The response body.
+     *
+     * @return The next frame or {@code null} if the stream is exhausted.
+     *
+     * @throws IOException If reading from the {@code source} fails.
+     */
+    abstract String nextFrame(BufferedSource source) throws IOException;
+}
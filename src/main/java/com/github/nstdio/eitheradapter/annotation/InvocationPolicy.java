@@ -42,6 +42,39 @@ public @interface InvocationPolicy {
      */
     StatusCodeRange[] rightRange() default {CLIENT_ERROR, SERVER_ERROR};
 
+    /**
+     * The response headers at which the {@link EitherCall} converts to the first parameterized type regardless of the
+     * status code. Checked before {@link #rightHeaders()} and any of the status code bounds.
+     */
+    Header[] leftHeaders() default {};
+
+    /**
+     * The response headers at which the {@link EitherCall} converts to the second parameterized type regardless of the
+     * status code. Checked before any of the status code bounds.
+     */
+    Header[] rightHeaders() default {};
+
+    /**
+     * The response header matcher. The header matches if its value without parameters, i.e. anything after the first
+     * {@code ;}, equals to the {@link #value()} ignoring case. Thus {@code application/problem+json} matches
+     * {@code Content-Type: application/problem+json; charset=utf-8}.
+     */
+    @Documented
+    @Target({})
+    @Retention(RUNTIME)
+    @interface Header {
+
+        /**
+         * The header name. Case insensitive.
+         */
+        String name();
+
+        /**
+         * The expected header value.
+         */
+        String value();
+    }
+
     /**
      * Sequential range of values ​​for the status code of the response.
      */
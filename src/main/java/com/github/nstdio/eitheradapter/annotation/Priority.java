@@ -0,0 +1,28 @@
+package com.github.nstdio.eitheradapter.annotation;
+
+import com.github.nstdio.eitheradapter.EitherCall;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * The default priority of the calls of the service method. When the factory limits the number of concurrent calls,
+ * the waiting calls with the higher priority are executed first. Has no effect otherwise.
+ *
+ * @see EitherCall#priority(int)
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Priority {
+
+    /**
+     * The priority. The greater value means the higher priority, the calls without this annotation have the priority
+     * {@code 0}.
+     */
+    int value();
+}
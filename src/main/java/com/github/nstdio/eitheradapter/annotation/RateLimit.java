@@ -0,0 +1,33 @@
+package com.github.nstdio.eitheradapter.annotation;
+
+import com.github.nstdio.eitheradapter.EitherCallback;
+import com.github.nstdio.eitheradapter.RateLimitExceededException;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Limits the rate at which the calls of the service method are executed. The limit is shared by all calls of the
+ * method created by the same factory. A call over the limit is either delayed until the permit is available, when the
+ * factory has the rate limit scheduler, or fails with {@link RateLimitExceededException} passed to
+ * {@link EitherCallback#onException(Throwable)} without being executed.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface RateLimit {
+
+    /**
+     * The sustained number of calls per second.
+     */
+    double permitsPerSecond();
+
+    /**
+     * The number of calls which might be executed at once after a period of inactivity.
+     */
+    int burst() default 1;
+}
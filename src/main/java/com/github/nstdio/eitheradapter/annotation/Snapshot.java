@@ -0,0 +1,30 @@
+package com.github.nstdio.eitheradapter.annotation;
+
+import com.github.nstdio.eitheradapter.EitherCall;
+import com.github.nstdio.eitheradapter.EitherCallback;
+import com.github.nstdio.eitheradapter.EitherSnapshotCallback;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks the service method whose last response routed to the first parameterized type is stored in the snapshot cache
+ * of the factory. When the callback is an {@link EitherSnapshotCallback} and the snapshot of the same request is
+ * available, it is passed to {@link EitherSnapshotCallback#onSnapshot(Object)} right away, while the request is executed
+ * as usual. The fresh result is delivered to the {@link EitherCallback} methods, which are still called once per
+ * request. The snapshot is read off the calling thread and is dropped if the fresh result wins the race. In the caching
+ * mode every subscribed {@link EitherSnapshotCallback} gets the snapshot, but only the fresh result is remembered.
+ * <p>
+ * Has no effect if the factory has no snapshot cache.
+ *
+ * @see EitherCall
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Snapshot {
+}
@@ -0,0 +1,181 @@
+package com.github.nstdio.eitheradapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * The handler is bound to the test thread, which drains the posted runnables the way the looper would.
+ */
+public class EitherCallDeliveryTest extends TestEnvironmentAware {
+    private final BlockingQueue<Runnable> posted = new LinkedBlockingQueue<Runnable>();
+    private final List<Person> received = new CopyOnWriteArrayList<Person>();
+    private final List<Throwable> exceptions = new CopyOnWriteArrayList<Throwable>();
+    private final EitherCallback<Person, Problem> callback = new EitherCallback<Person, Problem>() {
+        @Override
+        public void onLeft(Person left) {
+            received.add(left);
+        }
+
+        @Override
+        public void onRight(Problem right) {
+            fail("onRight called.");
+        }
+
+        @Override
+        public void onException(Throwable t) {
+            exceptions.add(t);
+        }
+    };
+    private Handler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        final Looper looper = Mockito.mock(Looper.class);
+        Mockito.when(looper.getThread()).thenReturn(Thread.currentThread());
+
+        handler = Mockito.mock(Handler.class);
+        Mockito.when(handler.getLooper()).thenReturn(looper);
+        Mockito.when(handler.post(Mockito.any(Runnable.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                posted.add((Runnable) invocation.getArgument(0));
+                return true;
+            }
+        });
+    }
+
+    @Test
+    public void deliversInlineOnHandlerThread() throws Exception {
+        final EitherCall<Person, Problem> call = completedCachedCall(false);
+
+        call.callback(callback);
+
+        assertEquals(2, received.size());
+        assertTrue(posted.isEmpty());
+    }
+
+    @Test
+    public void alwaysPostPostsOnHandlerThread() throws Exception {
+        final EitherCall<Person, Problem> call = completedCachedCall(true);
+
+        call.callback(callback);
+
+        assertEquals(1, received.size());
+        assertEquals(1, posted.size());
+
+        posted.take().run();
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void canceledAfterPostIsNotDelivered() throws Exception {
+        server.enqueue(mockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        final EitherCall<Person, Problem> call = retrofit(false).create(PersonService.class).person();
+        call.callback(callback);
+
+        final Runnable delivery = posted.poll(2, TimeUnit.SECONDS);
+        assertNotNull(delivery);
+
+        call.cancel();
+        delivery.run();
+
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void conversionFailureIsNotDeliveredAfterCancel() throws Exception {
+        server.enqueue(mockResponse().setBody("{\"firstName\":"));
+        final EitherCall<Person, Problem> call = retrofit(false).create(PersonService.class).person();
+        call.callback(callback);
+
+        final Runnable delivery = posted.poll(2, TimeUnit.SECONDS);
+        assertNotNull(delivery);
+        assertTrue(exceptions.isEmpty());
+
+        call.cancel();
+        delivery.run();
+
+        assertTrue(exceptions.isEmpty());
+    }
+
+    @Test
+    public void queuedConversionIsSkippedAfterCancel() throws Exception {
+        final BlockingQueue<Runnable> conversions = new LinkedBlockingQueue<Runnable>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                conversions.add(command);
+            }
+        };
+
+        server.enqueue(mockResponse().setBody("{\"firstName\":"));
+        final EitherCall<Person, Problem> call = retrofit(false, executor).create(PersonService.class).person();
+        call.callback(callback);
+
+        final Runnable conversion = conversions.poll(2, TimeUnit.SECONDS);
+        assertNotNull(conversion);
+
+        call.cancel();
+        conversion.run();
+
+        assertTrue(posted.isEmpty());
+        assertTrue(exceptions.isEmpty());
+        assertTrue(received.isEmpty());
+    }
+
+    /**
+     * @return The call whose result was received off the handler thread, posted and delivered to the first callback.
+     */
+    private EitherCall<Person, Problem> completedCachedCall(boolean alwaysPost) throws InterruptedException {
+        server.enqueue(mockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        final EitherCall<Person, Problem> call = retrofit(alwaysPost).create(PersonService.class).person().cached();
+        call.callback(callback);
+
+        final Runnable delivery = posted.poll(2, TimeUnit.SECONDS);
+        assertNotNull(delivery);
+        assertTrue(received.isEmpty());
+
+        delivery.run();
+        assertEquals(1, received.size());
+
+        return call;
+    }
+
+    private Retrofit retrofit(boolean alwaysPost) {
+        return retrofit(alwaysPost, null);
+    }
+
+    private Retrofit retrofit(boolean alwaysPost, Executor conversionExecutor) {
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(EitherCallAdapterFactory.builder()
+                        .handler(handler)
+                        .alwaysPost(alwaysPost)
+                        .conversionExecutor(conversionExecutor)
+                        .build())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+    }
+
+    interface PersonService {
+        @GET("/person")
+        EitherCall<Person, Problem> person();
+    }
+}
@@ -0,0 +1,316 @@
+package com.github.nstdio.eitheradapter;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives a few thousand concurrent calls with mixed status codes, body sizes and slow responses against the local
+ * server and fails when throughput, latency or connection reuse regress beyond the thresholds below, or when completed
+ * calls stay reachable. The thresholds are generous, so the test catches scaling problems rather than the noise of the
+ * build machine. The number of calls can be changed with the {@code either.load.calls} system property.
+ */
+public class EitherCallLoadTest extends TestEnvironmentAware {
+    private static final int CALLS = Integer.getInteger("either.load.calls", 2000);
+    private static final int WARM_UP_CALLS = 200;
+    private static final int CONCURRENCY = 64;
+    private static final int LARGE_BODY_LENGTH = 64 * 1024;
+    private static final int SLOW_RESPONSE_MILLIS = 50;
+
+    private static final double MIN_THROUGHPUT_PER_SECOND = 100;
+    private static final long MAX_P50_MILLIS = 250;
+    private static final long MAX_P99_MILLIS = 2000;
+    private static final int MAX_CONNECTIONS = 2 * CONCURRENCY;
+    /**
+     * Every n-th call is watched through a weak reference to check that nothing retains the completed calls.
+     */
+    private static final int RETENTION_SAMPLE = 50;
+
+    private EitherMetrics metrics;
+    private LoadService service;
+
+    @Before
+    public void setUp() throws Exception {
+        final String smallBody = gson.toJson(new Person("John", "Doe"));
+        final char[] large = new char[LARGE_BODY_LENGTH];
+        Arrays.fill(large, 'a');
+        final String largeBody = gson.toJson(new Person(new String(large), "Doe"));
+        final String problemBody = gson.toJson(new Problem("Desc"));
+
+        server.setDispatcher(new okhttp3.mockwebserver.Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                final int id = Integer.parseInt(request.getPath().substring("/load/".length()));
+                switch (Outcome.of(id)) {
+                    case LARGE:
+                        return mockResponse().setBody(largeBody);
+                    case SLOW:
+                        return mockResponse().setBody(smallBody).setBodyDelay(SLOW_RESPONSE_MILLIS, TimeUnit.MILLISECONDS);
+                    case CLIENT_ERROR:
+                        return mockResponse().setResponseCode(422).setBody(problemBody);
+                    case SERVER_ERROR:
+                        return mockResponse().setResponseCode(503).setBody(problemBody);
+                    case UNMATCHED:
+                        return mockResponse().setResponseCode(600);
+                    default:
+                        return mockResponse().setBody(smallBody);
+                }
+            }
+        });
+
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(CONCURRENCY);
+        dispatcher.setMaxRequestsPerHost(CONCURRENCY);
+
+        // The default pool keeps only five idle connections, the rest would be closed between the calls.
+        final OkHttpClient client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(CONCURRENCY, 5, TimeUnit.MINUTES))
+                .build();
+
+        metrics = new EitherMetrics();
+        final Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(client)
+                .addCallAdapterFactory(EitherCallAdapterFactory.builder()
+                        .handler(handlerMock())
+                        .metrics(metrics)
+                        .build())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+
+        service = retrofit.create(LoadService.class);
+    }
+
+    @Test
+    public void mixedLoad() throws Exception {
+        run(0, WARM_UP_CALLS);
+        drainRecordedRequests();
+
+        final long start = System.nanoTime();
+        final Result result = run(WARM_UP_CALLS, CALLS);
+        final long elapsed = System.nanoTime() - start;
+
+        final int connections = drainRecordedRequests();
+        final double throughput = CALLS / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+        final long[] latencies = result.sortedLatencies();
+        final long p50 = TimeUnit.NANOSECONDS.toMillis(percentile(latencies, 50));
+        final long p99 = TimeUnit.NANOSECONDS.toMillis(percentile(latencies, 99));
+
+        assertEquals(0, result.unexpected.get());
+        assertEquals(0, result.missing());
+
+        final EitherMetrics.EndpointSnapshot endpoint = metrics.snapshot().get("GET /load/{id}");
+        assertEquals(expected(WARM_UP_CALLS + CALLS, true, false), endpoint.left());
+        assertEquals(expected(WARM_UP_CALLS + CALLS, false, true), endpoint.right());
+        assertEquals(expected(WARM_UP_CALLS + CALLS, false, false), endpoint.unmatched());
+        assertEquals(0, endpoint.exception());
+        assertEquals(0, endpoint.conversionFailure());
+
+        assertTrue("Throughput regressed: " + throughput, throughput >= MIN_THROUGHPUT_PER_SECOND);
+        assertTrue("p50 latency regressed: " + p50, p50 <= MAX_P50_MILLIS);
+        assertTrue("p99 latency regressed: " + p99, p99 <= MAX_P99_MILLIS);
+        assertTrue("Connections are not reused: " + connections, connections <= MAX_CONNECTIONS);
+
+        final int retained = retained(result.sample);
+        assertEquals("Completed calls are still reachable: " + retained + " of " + result.sample.size(), 0, retained);
+    }
+
+    /**
+     * Executes the calls with ids in range {@code [from, from + count)} keeping at most {@link #CONCURRENCY} of them in
+     * flight, so the latency is not dominated by the time spent in the queue of the OkHttp dispatcher.
+     */
+    private Result run(int from, int count) throws InterruptedException {
+        final Result result = new Result(count);
+        final Semaphore inFlight = new Semaphore(CONCURRENCY);
+        final CountDownLatch done = new CountDownLatch(count);
+
+        for (int i = from; i < from + count; i++) {
+            inFlight.acquire();
+
+            final int index = i - from;
+            final Outcome outcome = Outcome.of(i);
+            final EitherCall<Person, Problem> call = service.load(i);
+            if (index % RETENTION_SAMPLE == 0) {
+                result.sample.add(new WeakReference<Object>(call));
+            }
+
+            final long start = System.nanoTime();
+            call.callback(new EitherCallback<Person, Problem>() {
+                @Override
+                public void onLeft(Person left) {
+                    complete(outcome.left && left != null);
+                }
+
+                @Override
+                public void onRight(Problem right) {
+                    complete(outcome.right && right != null);
+                }
+
+                @Override
+                public void onException(Throwable t) {
+                    complete(outcome == Outcome.UNMATCHED);
+                }
+
+                private void complete(boolean expected) {
+                    result.latencies.set(index, System.nanoTime() - start);
+                    if (!expected) {
+                        result.unexpected.incrementAndGet();
+                    }
+                    inFlight.release();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue("Calls did not complete in time.", done.await(60, TimeUnit.SECONDS));
+
+        return result;
+    }
+
+    /**
+     * @return The number of connections the recorded requests were sent over.
+     */
+    private int drainRecordedRequests() throws InterruptedException {
+        int connections = 0;
+        RecordedRequest request;
+        while ((request = server.takeRequest(100, TimeUnit.MILLISECONDS)) != null) {
+            if (request.getSequenceNumber() == 0) {
+                connections++;
+            }
+        }
+
+        return connections;
+    }
+
+    /**
+     * @return The exact percentile using the nearest-rank method.
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        final int rank = (int) Math.ceil(sorted.length * percentile / 100);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Collects the garbage until the referents are cleared, giving up after a few seconds.
+     *
+     * @return The number of referents still reachable.
+     */
+    private static int retained(List<WeakReference<Object>> references) throws InterruptedException {
+        int retained = references.size();
+        for (int attempt = 0; attempt < 50 && retained > 0; attempt++) {
+            System.gc();
+            Thread.sleep(50);
+
+            retained = 0;
+            for (WeakReference<Object> reference : references) {
+                if (reference.get() != null) {
+                    retained++;
+                }
+            }
+        }
+
+        return retained;
+    }
+
+    private static int expected(int calls, boolean left, boolean right) {
+        int count = 0;
+        for (int i = 0; i < calls; i++) {
+            final Outcome outcome = Outcome.of(i);
+            if (outcome.left == left && outcome.right == right) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private enum Outcome {
+        SMALL(true, false),
+        LARGE(true, false),
+        SLOW(true, false),
+        CLIENT_ERROR(false, true),
+        SERVER_ERROR(false, true),
+        UNMATCHED(false, false);
+
+        /**
+         * The share of each outcome out of every twenty calls.
+         */
+        private static final Outcome[] MIX = {
+                SMALL, SMALL, SMALL, SMALL, SMALL, SMALL, SMALL, SMALL, SMALL, SMALL,
+                LARGE, LARGE, SLOW, SLOW, CLIENT_ERROR, CLIENT_ERROR, CLIENT_ERROR, SERVER_ERROR, SERVER_ERROR,
+                UNMATCHED
+        };
+
+        final boolean left;
+        final boolean right;
+
+        Outcome(boolean left, boolean right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        static Outcome of(int id) {
+            return MIX[id % MIX.length];
+        }
+    }
+
+    private static final class Result {
+        final AtomicLongArray latencies;
+        final AtomicInteger unexpected = new AtomicInteger();
+        final List<WeakReference<Object>> sample = new ArrayList<WeakReference<Object>>();
+
+        Result(int count) {
+            latencies = new AtomicLongArray(count);
+        }
+
+        long[] sortedLatencies() {
+            final long[] sorted = new long[latencies.length()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+
+            return sorted;
+        }
+
+        /**
+         * @return The number of calls whose latency was not recorded.
+         */
+        int missing() {
+            int missing = 0;
+            for (int i = 0; i < latencies.length(); i++) {
+                if (latencies.get(i) == 0) {
+                    missing++;
+                }
+            }
+
+            return missing;
+        }
+    }
+
+    interface LoadService {
+        @GET("/load/{id}")
+        EitherCall<Person, Problem> load(@Path("id") int id);
+    }
+}
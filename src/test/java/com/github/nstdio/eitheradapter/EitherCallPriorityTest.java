@@ -0,0 +1,135 @@
+package com.github.nstdio.eitheradapter;
+
+import com.github.nstdio.eitheradapter.annotation.Priority;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EitherCallPriorityTest extends TestEnvironmentAware {
+    private PrioritizedService service;
+    private EitherCallback<Person, Problem> callback;
+
+    @Before
+    public void setUp() throws Exception {
+        final Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(EitherCallAdapterFactory.builder()
+                        .handler(handlerMock())
+                        .maxConcurrentCalls(1)
+                        .build())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+
+        service = retrofit.create(PrioritizedService.class);
+        callback = new EitherOnLeftCallback<Person, Problem>() {
+            @Override
+            public void onLeft(Person left) {
+                countDown();
+            }
+        };
+    }
+
+    @Test
+    public void higherPriorityRunsFirst() throws Exception {
+        server.enqueue(mockResponse()
+                .setBody(gson.toJson(new Person("John", "Doe")))
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(mockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        }
+
+        lock = new CountDownLatch(5);
+        service.background().callback(callback);
+        service.background().callback(callback);
+        service.background().callback(callback);
+        service.interactive().callback(callback);
+        service.background().priority(20).callback(callback);
+
+        await(3);
+        assertEquals(0, lock.getCount());
+
+        final List<String> paths = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            paths.add(server.takeRequest().getPath());
+        }
+
+        assertEquals("/background", paths.get(0));
+        assertEquals("/background", paths.get(1));
+        assertEquals("/interactive", paths.get(2));
+        assertEquals("/background", paths.get(3));
+    }
+
+    @Test
+    public void agingPreventsStarvation() throws Exception {
+        final List<String> order = new ArrayList<String>();
+        final PriorityDispatcher dispatcher = new PriorityDispatcher(1, TimeUnit.MILLISECONDS.toNanos(10));
+
+        dispatcher.submit(0, recording(order, "running"));
+        dispatcher.submit(0, recording(order, "old"));
+        Thread.sleep(50);
+        dispatcher.submit(1, recording(order, "new"));
+
+        dispatcher.finished();
+        dispatcher.finished();
+        dispatcher.finished();
+
+        assertEquals("running", order.get(0));
+        assertEquals("old", order.get(1));
+        assertEquals("new", order.get(2));
+    }
+
+    @Test
+    public void canceledJobsAreSkippedWithoutRecursion() throws Exception {
+        final List<String> order = new ArrayList<String>();
+        final PriorityDispatcher dispatcher = new PriorityDispatcher(1, 0);
+        final PriorityDispatcher.Job canceled = new PriorityDispatcher.Job() {
+            @Override
+            public boolean start() {
+                return false;
+            }
+        };
+
+        dispatcher.submit(0, recording(order, "running"));
+        for (int i = 0; i < 100000; i++) {
+            dispatcher.submit(0, canceled);
+        }
+        dispatcher.submit(0, recording(order, "last"));
+
+        dispatcher.finished();
+
+        assertEquals(2, order.size());
+        assertEquals("last", order.get(1));
+
+        dispatcher.finished();
+        dispatcher.submit(0, recording(order, "free"));
+        assertEquals("free", order.get(2));
+    }
+
+    private static PriorityDispatcher.Job recording(final List<String> order, final String name) {
+        return new PriorityDispatcher.Job() {
+            @Override
+            public boolean start() {
+                order.add(name);
+                return true;
+            }
+        };
+    }
+
+    interface PrioritizedService {
+        @GET("/background")
+        EitherCall<Person, Problem> background();
+
+        @GET("/interactive")
+        @Priority(10)
+        EitherCall<Person, Problem> interactive();
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.nstdio.eitheradapter;
+
+import android.os.Handler;
+import com.github.nstdio.eitheradapter.annotation.RateLimit;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.*;
+
+public class EitherCallRateLimitTest extends TestEnvironmentAware {
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void failsFastOverLimit() throws Exception {
+        final LimitedService service = retrofit(null).create(LimitedService.class);
+        server.enqueue(mockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        server.enqueue(mockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+
+        final AtomicInteger lefts = new AtomicInteger();
+        lock = new CountDownLatch(3);
+        final EitherCallback<Person, Problem> callback = new EitherCallback<Person, Problem>() {
+            @Override
+            public void onLeft(Person left) {
+                lefts.incrementAndGet();
+                countDown();
+            }
+
+            @Override
+            public void onRight(Problem right) {
+                fail("onRight called.");
+            }
+
+            @Override
+            public void onException(Throwable t) {
+                actualThrowable = t;
+                countDown();
+            }
+        };
+
+        service.person().callback(callback);
+        service.person().callback(callback);
+        service.person().callback(callback);
+
+        await(2);
+
+        assertEquals(2, lefts.get());
+        assertThat(actualThrowable, instanceOf(RateLimitExceededException.class));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void delaysOverLimit() throws Exception {
+        final LimitedService service = retrofit(scheduler).create(LimitedService.class);
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(mockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        }
+
+        lock = new CountDownLatch(3);
+        final EitherOnLeftCallback<Person, Problem> callback = new EitherOnLeftCallback<Person, Problem>() {
+            @Override
+            public void onLeft(Person left) {
+                countDown();
+            }
+        };
+
+        final long start = System.nanoTime();
+        service.person().callback(callback);
+        service.person().callback(callback);
+        service.person().callback(callback);
+
+        await(2);
+
+        assertEquals(0, lock.getCount());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void reportsRejectedDelay() throws Exception {
+        final LimitedService service = retrofit(scheduler).create(LimitedService.class);
+        for (int i = 0; i < 2; i++) {
+            server.enqueue(mockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        }
+        scheduler.shutdown();
+
+        final EitherOnLeftCallback<Person, Problem> ignoring = new EitherOnLeftCallback<Person, Problem>() {
+            @Override
+            public void onLeft(Person left) {
+            }
+        };
+        service.person().callback(ignoring);
+        service.person().callback(ignoring);
+        service.person().callback(onExceptionCallback);
+
+        await(2);
+
+        assertThat(actualThrowable, instanceOf(RejectedExecutionException.class));
+    }
+
+    @Test
+    public void failFastGoesThroughHandler() throws Exception {
+        final AtomicInteger posts = new AtomicInteger();
+        final Handler handler = handlerMock();
+        Mockito.when(handler.post(Mockito.any(Runnable.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                posts.incrementAndGet();
+                ((Runnable) invocation.getArgument(0)).run();
+                return true;
+            }
+        });
+
+        final LimitedService service = retrofit(handler, null).create(LimitedService.class);
+        final EitherOnLeftCallback<Person, Problem> counting = new EitherOnLeftCallback<Person, Problem>() {
+            @Override
+            public void onLeft(Person left) {
+                countDown();
+            }
+        };
+        for (int i = 0; i < 2; i++) {
+            server.enqueue(mockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        }
+        lock = new CountDownLatch(2);
+        service.person().callback(counting);
+        service.person().callback(counting);
+        await(2);
+        posts.set(0);
+
+        service.person().callback(onExceptionCallback);
+
+        assertEquals(1, posts.get());
+        assertThat(actualThrowable, instanceOf(RateLimitExceededException.class));
+    }
+
+    private Retrofit retrofit(ScheduledExecutorService scheduler) {
+        return retrofit(handlerMock(), scheduler);
+    }
+
+    private Retrofit retrofit(Handler handler, ScheduledExecutorService scheduler) {
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(EitherCallAdapterFactory.builder()
+                        .handler(handler)
+                        .rateLimitScheduler(scheduler)
+                        .build())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+    }
+
+    interface LimitedService {
+        @GET("/person")
+        @RateLimit(permitsPerSecond = 5, burst = 2)
+        EitherCall<Person, Problem> person();
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.nstdio.eitheradapter;
+
+import android.os.Handler;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Streaming;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EitherCallStreamTest extends TestEnvironmentAware {
+    private StreamService service;
+    private List<Person> frames;
+
+    @Before
+    public void setUp() throws Exception {
+        service = defaultRetrofit().create(StreamService.class);
+        frames = new CopyOnWriteArrayList<Person>();
+    }
+
+    @Test
+    public void ndjson() throws Exception {
+        final String body = gson.toJson(new Person("John", "Doe")) + "\n\n" +
+                gson.toJson(new Person("Jane", "Roe")) + "\n";
+
+        server.enqueue(mockResponse().setBody(body));
+        service.stream().stream(StreamFormat.NDJSON, 1, new CollectingCallback());
+
+        await();
+
+        assertEquals(2, frames.size());
+        assertEquals("John", frames.get(0).firstName);
+        assertEquals("Roe", frames.get(1).lastName);
+    }
+
+    @Test
+    public void sse() throws Exception {
+        final String body = ": comment\n" +
+                "event: person\n" +
+                "data: " + gson.toJson(new Person("John", "Doe")) + "\n\n" +
+                "data: {\"firstName\":\"Jane\",\n" +
+                "data:\"lastName\":\"Roe\"}\n\n" +
+                "data: {\"firstName\":\"Incomplete\"}\n";
+
+        server.enqueue(mockResponse().setBody(body));
+        service.stream().stream(StreamFormat.SSE, 4, new CollectingCallback());
+
+        await();
+
+        assertEquals(2, frames.size());
+        assertEquals("Doe", frames.get(0).lastName);
+        assertEquals("Jane", frames.get(1).firstName);
+        assertEquals("Roe", frames.get(1).lastName);
+    }
+
+    @Test
+    public void rightIsConvertedAsWhole() throws Exception {
+        server.enqueue(mockResponse().setResponseCode(422).setBody(gson.toJson(new Problem("Validation error."))));
+
+        service.stream().stream(StreamFormat.NDJSON, 1, new CollectingCallback() {
+            @Override
+            public void onRight(Problem right) {
+                actualProblem = right;
+                countDown();
+            }
+        });
+
+        await();
+
+        assertTrue(frames.isEmpty());
+        assertNotNull(actualProblem);
+        assertEquals("Validation error.", actualProblem.desc);
+    }
+
+    @Test
+    public void cancelWakesStreamWaitingForDelivery() throws Exception {
+        final BlockingQueue<Thread> posters = new LinkedBlockingQueue<Thread>();
+        final EitherCall<Person, Problem> call = service(postingHandler(posters, true)).stream();
+        server.enqueue(mockResponse().setBody(frames(3)));
+
+        call.stream(StreamFormat.NDJSON, 1, new CollectingCallback());
+
+        final Thread reader = posters.poll(2, TimeUnit.SECONDS);
+        assertNotNull(reader);
+
+        call.cancel();
+
+        assertTrue(stopsStreaming(reader));
+        assertTrue(posters.isEmpty());
+    }
+
+    @Test
+    public void quittingLooperCancelsStream() throws Exception {
+        final BlockingQueue<Thread> posters = new LinkedBlockingQueue<Thread>();
+        final EitherCall<Person, Problem> call = service(postingHandler(posters, false)).stream();
+        server.enqueue(mockResponse().setBody(frames(3)));
+
+        call.stream(StreamFormat.NDJSON, 1, new CollectingCallback());
+
+        final Thread reader = posters.poll(2, TimeUnit.SECONDS);
+        assertNotNull(reader);
+        assertTrue(stopsStreaming(reader));
+        assertTrue(call.isCanceled());
+        assertTrue(frames.isEmpty());
+    }
+
+    private String frames(int count) {
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append(gson.toJson(new Person("John", "Doe"))).append('\n');
+        }
+
+        return body.toString();
+    }
+
+    /**
+     * @return The handler which never runs the posted runnables, but records the posting threads.
+     */
+    private Handler postingHandler(final BlockingQueue<Thread> posters, final boolean accepts) {
+        final Handler handler = Mockito.mock(Handler.class, Mockito.withSettings().stubOnly());
+        Mockito.when(handler.post(Mockito.any(Runnable.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                posters.add(Thread.currentThread());
+                return accepts;
+            }
+        });
+
+        return handler;
+    }
+
+    private StreamService service(Handler handler) {
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(EitherCallAdapterFactory.create(handler))
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build()
+                .create(StreamService.class);
+    }
+
+    private static boolean stopsStreaming(Thread reader) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (!isStreaming(reader)) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+
+        return false;
+    }
+
+    private static boolean isStreaming(Thread thread) {
+        for (StackTraceElement element : thread.getStackTrace()) {
+            if ("streamLeft".equals(element.getMethodName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private class CollectingCallback implements EitherStreamCallback<Person, Problem> {
+        CollectingCallback() {
+            lock = new CountDownLatch(1);
+        }
+
+        @Override
+        public void onComplete() {
+            countDown();
+        }
+
+        @Override
+        public void onLeft(Person left) {
+            frames.add(left);
+        }
+
+        @Override
+        public void onRight(Problem right) {
+            fail("onRight called.");
+        }
+
+        @Override
+        public void onException(Throwable t) {
+            fail("onException called.");
+        }
+    }
+
+    interface StreamService {
+        @GET("/")
+        @Streaming
+        EitherCall<Person, Problem> stream();
+    }
+}
@@ -135,6 +135,63 @@ public class EitherCallWithExplicitBoundsTest extends TestEnvironmentAware {
         assertEquals(problem.desc, actualProblem.desc);
     }
 
+    @Test
+    public void headerRoutesRegardlessOfStatusCode() throws Exception {
+        Problem problem = new Problem("Out of credit.");
+
+        mockResponse.setResponseCode(200)
+                .setHeader("Content-Type", "Application/Problem+JSON; charset=utf-8")
+                .setBody(gson.toJson(problem));
+
+        server.enqueue(mockResponse);
+
+        defaultRetrofit().create(Service6.class)
+                .call()
+                .callback(onRightCallback);
+
+        await();
+        assertNotNull(actualProblem);
+        assertEquals(problem.desc, actualProblem.desc);
+    }
+
+    @Test
+    public void headerMatchIgnoresTabs() throws Exception {
+        Problem problem = new Problem("Out of credit.");
+
+        mockResponse.setResponseCode(200)
+                .setHeader("Content-Type", "application/problem+json\t; charset=utf-8")
+                .setBody(gson.toJson(problem));
+
+        server.enqueue(mockResponse);
+
+        defaultRetrofit().create(Service6.class)
+                .call()
+                .callback(onRightCallback);
+
+        await();
+        assertNotNull(actualProblem);
+        assertEquals(problem.desc, actualProblem.desc);
+    }
+
+    @Test
+    public void headerNotMatchedFallsBackToStatusCode() throws Exception {
+        final Person person = new Person("First", "Last");
+
+        mockResponse.setResponseCode(200)
+                .setHeader("Content-Type", "application/json")
+                .setBody(gson.toJson(person));
+
+        server.enqueue(mockResponse);
+
+        defaultRetrofit().create(Service6.class)
+                .call()
+                .callback(onLeftCallback);
+
+        await();
+        assertNotNull(actualPerson);
+        assertEquals(person.firstName, actualPerson.firstName);
+    }
+
     interface Service1 {
         @GET("/")
         @InvocationPolicy(left = 422, right = 200)
@@ -164,4 +221,11 @@ public class EitherCallWithExplicitBoundsTest extends TestEnvironmentAware {
         @InvocationPolicy(left = 200, right = {422, 401})
         EitherCall<Person, Problem> call();
     }
+
+    interface Service6 {
+        @GET("/")
+        @InvocationPolicy(rightHeaders = @InvocationPolicy.Header(name = "Content-Type",
+                value = "application/problem+json"))
+        EitherCall<Person, Problem> call();
+    }
 }
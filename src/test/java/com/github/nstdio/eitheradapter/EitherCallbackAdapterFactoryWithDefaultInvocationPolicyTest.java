@@ -1,14 +1,30 @@
 package com.github.nstdio.eitheradapter;
 
+import okhttp3.ResponseBody;
 import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
 import okhttp3.mockwebserver.SocketPolicy;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import retrofit2.Converter;
 import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.GET;
-
+import retrofit2.http.Streaming;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.*;
@@ -240,11 +256,242 @@ public class EitherCallbackAdapterFactoryWithDefaultInvocationPolicyTest extends
         assertNull(actualPerson);
     }
 
+    @Test
+    public void convertersResolvedLazily() throws Exception {
+        final List<Type> requested = new ArrayList<Type>();
+        final Retrofit retrofit = recordingRetrofit(requested);
+
+        final EitherCall<Person, Problem> call = retrofit.create(DefaultService.class).eitherTokenOrProblem();
+        assertTrue(requested.isEmpty());
+
+        server.enqueue(new MockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        call.callback(onLeftCallback);
+
+        await();
+
+        assertNotNull(actualPerson);
+        assertEquals(1, requested.size());
+        assertEquals(Person.class, requested.get(0));
+    }
+
+    @Test
+    public void warmUpResolvesConverters() throws Exception {
+        final List<Type> requested = new ArrayList<Type>();
+        final Retrofit retrofit = recordingRetrofit(requested);
+
+        EitherCallAdapterFactory.warmUp(retrofit, DefaultService.class);
+
+        assertEquals(2, requested.size());
+        assertTrue(requested.contains(Person.class));
+        assertTrue(requested.contains(Problem.class));
+
+        server.enqueue(new MockResponse().setResponseCode(422).setBody(gson.toJson(new Problem("Desc"))));
+        retrofit.create(DefaultService.class).eitherTokenOrProblem().callback(onRightCallback);
+
+        await();
+
+        assertNotNull(super.actualProblem);
+        assertEquals(2, requested.size());
+    }
+
+    @Test
+    public void sharedFactoryDoesNotRetainRetrofit() throws Exception {
+        final EitherCallAdapterFactory factory = EitherCallAdapterFactory.create(handlerMock());
+        final Retrofit base = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(factory)
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+
+        final WeakReference<Retrofit> derived = derivedAndUsed(base);
+
+        for (int i = 0; i < 50 && derived.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        assertNull(derived.get());
+    }
+
+    /**
+     * Warms up and calls the service of the Retrofit derived from {@code base}, leaving no strong references to it.
+     */
+    private WeakReference<Retrofit> derivedAndUsed(Retrofit base) throws InterruptedException {
+        final Retrofit derived = base.newBuilder().build();
+        EitherCallAdapterFactory.warmUp(derived, DefaultService.class);
+        EitherCallAdapterFactory.warmUp(derived, VoidService.class);
+
+        server.enqueue(new MockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        derived.create(DefaultService.class).eitherTokenOrProblem().callback(onLeftCallback);
+        await();
+        assertNotNull(actualPerson);
+
+        return new WeakReference<Retrofit>(derived);
+    }
+
+    @Test
+    public void voidBranchIsNotConverted() throws Exception {
+        final List<Type> requested = new ArrayList<Type>();
+        final Retrofit retrofit = recordingRetrofit(requested);
+
+        server.enqueue(new MockResponse().setBody("not a json"));
+        server.enqueue(new MockResponse().setBody("not a json"));
+
+        final VoidService service = retrofit.create(VoidService.class);
+        final CountDownLatch done = new CountDownLatch(2);
+        final EitherOnLeftCallback<Void, Problem> callback = new EitherOnLeftCallback<Void, Problem>() {
+            @Override
+            public void onLeft(Void left) {
+                assertNull(left);
+                done.countDown();
+            }
+        };
+
+        service.fireAndForget().callback(callback);
+        service.fireAndForget().callback(callback);
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertTrue(requested.isEmpty());
+    }
+
+    @Test
+    public void convertsOnConversionExecutor() throws Exception {
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final AtomicInteger executed = new AtomicInteger();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                executed.incrementAndGet();
+                pool.execute(command);
+            }
+        };
+
+        final Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(EitherCallAdapterFactory.builder()
+                        .handler(handlerMock())
+                        .conversionExecutor(executor)
+                        .build())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+
+        server.enqueue(new MockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        retrofit.create(DefaultService.class).eitherTokenOrProblem().callback(onLeftCallback);
+
+        await();
+        pool.shutdown();
+
+        assertNotNull(actualPerson);
+        assertEquals("John", actualPerson.firstName);
+        assertEquals(1, executed.get());
+    }
+
+    @Test
+    public void cachedExecutesOnce() throws Exception {
+        lock = new CountDownLatch(3);
+        final List<Person> received = new CopyOnWriteArrayList<Person>();
+        final EitherOnLeftCallback<Person, Problem> callback = new EitherOnLeftCallback<Person, Problem>() {
+            @Override
+            public void onLeft(Person left) {
+                received.add(left);
+                countDown();
+            }
+        };
+
+        server.enqueue(new MockResponse()
+                .setBody(gson.toJson(new Person("John", "Doe")))
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+
+        final EitherCall<Person, Problem> call = defaultService.eitherTokenOrProblem().cached();
+        call.callback(callback);
+        call.callback(callback);
+
+        for (int i = 0; i < 300 && received.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        call.callback(callback);
+
+        await(3);
+
+        assertEquals(3, received.size());
+        assertSame(received.get(0), received.get(1));
+        assertSame(received.get(0), received.get(2));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void streamingBodyIsClosedAfterConversion() throws Exception {
+        final Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(EitherCallAdapterFactory.create(handlerMock()))
+                .addConverterFactory(new Converter.Factory() {
+                    @Override
+                    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations,
+                                                                            Retrofit retrofit) {
+                        // Leaves the body unread and open.
+                        return new Converter<ResponseBody, Person>() {
+                            @Override
+                            public Person convert(ResponseBody value) {
+                                return new Person("John", "Doe");
+                            }
+                        };
+                    }
+                })
+                .build();
+        final StreamingService service = retrofit.create(StreamingService.class);
+
+        server.enqueue(new MockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        server.enqueue(new MockResponse().setBody(gson.toJson(new Person("Jane", "Doe"))));
+
+        service.person().callback(onLeftCallback);
+        await();
+        assertNotNull(actualPerson);
+
+        lock = new CountDownLatch(1);
+        actualPerson = null;
+        service.person().callback(onLeftCallback);
+        await();
+        assertNotNull(actualPerson);
+
+        final RecordedRequest first = server.takeRequest();
+        final RecordedRequest second = server.takeRequest();
+        assertEquals(0, first.getSequenceNumber());
+        assertEquals(1, second.getSequenceNumber());
+    }
+
+    private Retrofit recordingRetrofit(final List<Type> requested) {
+        final GsonConverterFactory delegate = GsonConverterFactory.create(gson);
+
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(EitherCallAdapterFactory.create(handlerMock()))
+                .addConverterFactory(new Converter.Factory() {
+                    @Override
+                    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations,
+                                                                            Retrofit retrofit) {
+                        requested.add(type);
+                        return delegate.responseBodyConverter(type, annotations, retrofit);
+                    }
+                })
+                .build();
+    }
+
     interface DefaultService {
         @GET("/")
         EitherCall<Person, Problem> eitherTokenOrProblem();
     }
 
+    interface StreamingService {
+        @GET("/")
+        @Streaming
+        EitherCall<Person, Problem> person();
+    }
+
+    interface VoidService {
+        @GET("/")
+        EitherCall<Void, Problem> fireAndForget();
+    }
+
     interface DefaultNotParametrizedService {
         @GET("/")
         EitherCall shouldThrow();
@@ -0,0 +1,178 @@
+package com.github.nstdio.eitheradapter;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EitherCallsTest extends TestEnvironmentAware {
+    private OkHttpClient client;
+    private PersonService service;
+    private List<Person> actualPeople;
+    private String actualName;
+
+    @Before
+    public void setUp() throws Exception {
+        client = new OkHttpClient();
+        service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(client)
+                .addCallAdapterFactory(EitherCallAdapterFactory.create(handlerMock()))
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build()
+                .create(PersonService.class);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                final String name = request.getPath().substring(1);
+                if (name.startsWith("slow")) {
+                    return mockResponse()
+                            .setBody(gson.toJson(new Person(name, "Doe")))
+                            .setBodyDelay(2, TimeUnit.SECONDS);
+                } else if (name.startsWith("late")) {
+                    return mockResponse()
+                            .setBody(gson.toJson(new Person(name, "Doe")))
+                            .setBodyDelay(200, TimeUnit.MILLISECONDS);
+                } else if (name.startsWith("problem")) {
+                    return mockResponse().setResponseCode(422).setBody(gson.toJson(new Problem(name)));
+                }
+
+                return mockResponse().setBody(gson.toJson(new Person(name, "Doe")));
+            }
+        });
+    }
+
+    @Test
+    public void zip() throws Exception {
+        EitherCalls.zip(service.person("John"), service.person("Jane"),
+                new EitherCalls.Combiner<Person, Person, String>() {
+                    @Override
+                    public String combine(Person a, Person b) {
+                        return a.firstName + " & " + b.firstName;
+                    }
+                },
+                new EitherOnLeftCallback<String, Problem>() {
+                    @Override
+                    public void onLeft(String left) {
+                        actualName = left;
+                        countDown();
+                    }
+                });
+
+        await();
+
+        assertEquals("John & Jane", actualName);
+    }
+
+    @Test
+    public void allFailsFastOnRight() throws Exception {
+        final EitherCall<Person, Problem> slow = service.person("slow");
+        final long start = System.nanoTime();
+        EitherCalls.all(Arrays.asList(slow, service.person("problem")),
+                new EitherOnRightCallback<List<Person>, Problem>() {
+                    @Override
+                    public void onRight(Problem right) {
+                        actualProblem = right;
+                        countDown();
+                    }
+                });
+
+        await(3);
+
+        assertNotNull(actualProblem);
+        assertEquals("problem", actualProblem.desc);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+        assertTrue(slow.isCanceled());
+    }
+
+    @Test
+    public void allPreservesOrder() throws Exception {
+        EitherCalls.all(Arrays.asList(service.person("slow"), service.person("John")),
+                new EitherOnLeftCallback<List<Person>, Problem>() {
+                    @Override
+                    public void onLeft(List<Person> left) {
+                        actualPeople = left;
+                        countDown();
+                    }
+                });
+
+        await(5);
+
+        assertNotNull(actualPeople);
+        assertEquals("slow", actualPeople.get(0).firstName);
+        assertEquals("John", actualPeople.get(1).firstName);
+    }
+
+    @Test
+    public void firstLeft() throws Exception {
+        final EitherCall<Person, Problem> slow = service.person("slow");
+        // The winner is late, so that the losing problem is received before the losers are canceled.
+        EitherCalls.firstLeft(Arrays.asList(slow, service.person("problem"), service.person("lateJohn")),
+                new EitherOnLeftCallback<Person, List<Problem>>() {
+                    @Override
+                    public void onLeft(Person left) {
+                        actualPerson = left;
+                        countDown();
+                    }
+                });
+
+        await();
+
+        assertNotNull(actualPerson);
+        assertEquals("lateJohn", actualPerson.firstName);
+        assertTrue(slow.isCanceled());
+        assertSlowResponseReleased();
+    }
+
+    /**
+     * The connection of the canceled slow response is closed rather than kept busy until the body arrives.
+     */
+    private void assertSlowResponseReleased() throws InterruptedException {
+        int connections = 0;
+        for (int i = 0; i < 3; i++) {
+            if (server.takeRequest().getSequenceNumber() == 0) {
+                connections++;
+            }
+        }
+
+        for (int i = 0; i < 100 && client.connectionPool().connectionCount() != connections - 1; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(connections - 1, client.connectionPool().connectionCount());
+    }
+
+    @Test
+    public void firstLeftAllRight() throws Exception {
+        EitherCalls.firstLeft(Arrays.asList(service.person("problem1"), service.person("problem2")),
+                new EitherOnRightCallback<Person, List<Problem>>() {
+                    @Override
+                    public void onRight(List<Problem> right) {
+                        actualProblem = right.get(1);
+                        countDown();
+                    }
+                });
+
+        await();
+
+        assertNotNull(actualProblem);
+        assertEquals("problem2", actualProblem.desc);
+    }
+
+    interface PersonService {
+        @GET("/{name}")
+        EitherCall<Person, Problem> person(@Path("name") String name);
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.nstdio.eitheradapter;
+
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class EitherMetricsTest extends TestEnvironmentAware {
+    private EitherMetrics metrics;
+    private MetricsService service;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new EitherMetrics();
+
+        final Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(EitherCallAdapterFactory.builder()
+                        .handler(handlerMock())
+                        .metrics(metrics)
+                        .build())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+
+        service = retrofit.create(MetricsService.class);
+    }
+
+    @Test
+    public void recordsOutcomes() throws Exception {
+        server.enqueue(mockResponse().setBody(gson.toJson(new Person("John", "Doe"))));
+        server.enqueue(mockResponse().setResponseCode(422).setBody(gson.toJson(new Problem("Desc"))));
+        server.enqueue(mockResponse().setResponseCode(600));
+        server.enqueue(mockResponse().setBody("123"));
+
+        lock = new CountDownLatch(4);
+        final EitherCallback<Person, Problem> countingCallback = new EitherCallback<Person, Problem>() {
+            @Override
+            public void onLeft(Person left) {
+                countDown();
+            }
+
+            @Override
+            public void onRight(Problem right) {
+                countDown();
+            }
+
+            @Override
+            public void onException(Throwable t) {
+                countDown();
+            }
+        };
+
+        for (int i = 0; i < 4; i++) {
+            service.person().callback(countingCallback);
+            server.takeRequest();
+        }
+
+        await(10);
+
+        final Map<String, EitherMetrics.EndpointSnapshot> snapshot = metrics.snapshot();
+        final EitherMetrics.EndpointSnapshot endpoint = snapshot.get("GET /person");
+
+        assertNotNull(endpoint);
+        // The body "123" is routed to the left and fails to convert.
+        assertEquals(2, endpoint.left());
+        assertEquals(1, endpoint.right());
+        assertEquals(1, endpoint.unmatched());
+        assertEquals(0, endpoint.exception());
+        assertEquals(1, endpoint.conversionFailure());
+        assertEquals(4, endpoint.network().count());
+        assertEquals(2, endpoint.conversion().count());
+    }
+
+    @Test
+    public void histogramPercentiles() throws Exception {
+        final EitherMetrics.Histogram histogram = new EitherMetrics.Histogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+
+        final EitherMetrics.HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.count());
+        assertEquals(127, snapshot.percentile(50));
+        assertEquals(127, snapshot.percentile(99));
+        assertEquals(8191, snapshot.percentile(100));
+        assertEquals(0, new EitherMetrics.Histogram().snapshot().percentile(99));
+    }
+
+    interface MetricsService {
+        @GET("/person")
+        EitherCall<Person, Problem> person();
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.nstdio.eitheradapter;
+
+import okhttp3.Headers;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+import retrofit2.http.Url;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class EitherPagerTest extends TestEnvironmentAware {
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]*)>\\s*;\\s*rel=\"next\"");
+
+    private PagedService service;
+
+    @Before
+    public void setUp() throws Exception {
+        service = defaultRetrofit().create(PagedService.class);
+    }
+
+    @Test
+    public void iteratesUntilLastPage() throws Exception {
+        server.enqueue(mockResponse().setBody(gson.toJson(new Page(1, 2))));
+        server.enqueue(mockResponse().setBody(gson.toJson(new Page(2, 3))));
+        server.enqueue(mockResponse().setBody(gson.toJson(new Page(3, 0))));
+
+        final EitherPager<Page, Problem> pager = EitherPager.create(loader(), 2);
+
+        final List<Integer> numbers = new ArrayList<Integer>();
+        while (pager.hasNext()) {
+            numbers.add(pager.next().number);
+        }
+
+        assertEquals(3, numbers.size());
+        assertEquals(Integer.valueOf(1), numbers.get(0));
+        assertEquals(Integer.valueOf(3), numbers.get(2));
+        assertNull(pager.right());
+        assertNull(pager.exception());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void stopsOnRight() throws Exception {
+        server.enqueue(mockResponse().setBody(gson.toJson(new Page(1, 2))));
+        server.enqueue(mockResponse().setResponseCode(500).setBody(gson.toJson(new Problem("Server error."))));
+
+        final EitherPager<Page, Problem> pager = EitherPager.create(loader(), 1);
+
+        assertTrue(pager.hasNext());
+        assertEquals(1, pager.next().number);
+        assertFalse(pager.hasNext());
+        assertNotNull(pager.right());
+        assertEquals("Server error.", pager.right().desc);
+    }
+
+    @Test
+    public void doesNotPrefetchBeyondDepth() throws Exception {
+        server.enqueue(mockResponse().setBody(gson.toJson(new Page(1, 2))));
+        server.enqueue(mockResponse().setBody(gson.toJson(new Page(2, 3))));
+        server.enqueue(mockResponse().setBody(gson.toJson(new Page(3, 0))));
+
+        final EitherPager<Page, Problem> pager = EitherPager.create(loader(), 1);
+
+        assertTrue(pager.hasNext());
+        Thread.sleep(200);
+        assertEquals(1, server.getRequestCount());
+
+        pager.next();
+        assertTrue(pager.hasNext());
+        assertEquals(2, server.getRequestCount());
+        pager.cancel();
+    }
+
+    @Test
+    public void stopsWhenLoaderThrows() throws Exception {
+        server.enqueue(mockResponse().setBody(gson.toJson(new Page(1, 2))));
+
+        final IllegalStateException failure = new IllegalStateException("No next page.");
+        final EitherPager<Page, Problem> pager = EitherPager.create(new EitherPager.PageLoader<Page, Problem>() {
+            @Override
+            public EitherCall<Page, Problem> first() {
+                return service.page(1);
+            }
+
+            @Override
+            public EitherCall<Page, Problem> next(Page previous, Headers headers) {
+                throw failure;
+            }
+        }, 2);
+
+        assertTrue(pager.hasNext());
+        assertEquals(1, pager.next().number);
+        assertFalse(pager.hasNext());
+        assertSame(failure, pager.exception());
+        assertNull(pager.right());
+    }
+
+    @Test
+    public void followsLinkHeader() throws Exception {
+        server.enqueue(mockResponse()
+                .setHeader("Link", "<" + server.url("/items?cursor=b") + ">; rel=\"next\"")
+                .setBody(gson.toJson(new Page(1, 0))));
+        server.enqueue(mockResponse()
+                .setHeader("Link", "<" + server.url("/items?cursor=a") + ">; rel=\"prev\"")
+                .setBody(gson.toJson(new Page(2, 0))));
+
+        final EitherPager<Page, Problem> pager = EitherPager.create(new EitherPager.PageLoader<Page, Problem>() {
+            @Override
+            public EitherCall<Page, Problem> first() {
+                return service.page(server.url("/items").toString());
+            }
+
+            @Override
+            public EitherCall<Page, Problem> next(Page previous, Headers headers) {
+                final String link = headers.get("Link");
+                final Matcher matcher = link == null ? null : NEXT_LINK.matcher(link);
+                return matcher != null && matcher.find() ? service.page(matcher.group(1)) : null;
+            }
+        }, 2);
+
+        final List<Integer> numbers = new ArrayList<Integer>();
+        while (pager.hasNext()) {
+            numbers.add(pager.next().number);
+        }
+
+        assertEquals(2, numbers.size());
+        assertEquals(Integer.valueOf(2), numbers.get(1));
+        assertNull(pager.exception());
+        assertEquals(2, server.getRequestCount());
+        server.takeRequest();
+        assertEquals("/items?cursor=b", server.takeRequest().getPath());
+    }
+
+    private EitherPager.PageLoader<Page, Problem> loader() {
+        return new EitherPager.PageLoader<Page, Problem>() {
+            @Override
+            public EitherCall<Page, Problem> first() {
+                return service.page(1);
+            }
+
+            @Override
+            public EitherCall<Page, Problem> next(Page previous, Headers headers) {
+                return previous.next == 0 ? null : service.page(previous.next);
+            }
+        };
+    }
+
+    interface PagedService {
+        @GET("/")
+        EitherCall<Page, Problem> page(@Query("page") int page);
+
+        @GET
+        EitherCall<Page, Problem> page(@Url String url);
+    }
+
+    static class Page {
+        final int number;
+        final int next;
+
+        Page(int number, int next) {
+            this.number = number;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.github.nstdio.eitheradapter;
+
+import com.github.nstdio.eitheradapter.annotation.Snapshot;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EitherSnapshotCacheTest extends TestEnvironmentAware {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private EitherSnapshotCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        file = folder.newFile("snapshots");
+        cache = EitherSnapshotCache.open(file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache.close();
+    }
+
+    @Test
+    public void latestRecordSurvivesReopen() throws Exception {
+        cache.put("a", null, "first".getBytes("UTF-8"));
+        cache.put("b", null, "other".getBytes("UTF-8"));
+        cache.put("a", null, "second".getBytes("UTF-8"));
+        cache.close();
+
+        cache = EitherSnapshotCache.open(file);
+
+        assertEquals("second", cache.get("a").string());
+        assertEquals("other", cache.get("b").string());
+        assertNull(cache.get("c"));
+    }
+
+    @Test
+    public void incompleteTailIsDiscarded() throws Exception {
+        cache.put("a", null, "value".getBytes("UTF-8"));
+        cache.close();
+
+        final long length = file.length();
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(length);
+        raf.writeInt(10);
+        raf.close();
+
+        cache = EitherSnapshotCache.open(file);
+        cache.put("b", null, "next".getBytes("UTF-8"));
+
+        assertEquals("value", cache.get("a").string());
+        assertEquals("next", cache.get("b").string());
+    }
+
+    @Test
+    public void contentTypeSurvivesReopen() throws Exception {
+        final MediaType contentType = MediaType.parse("text/plain; charset=UTF-16");
+        cache.put("a", contentType, "value".getBytes("UTF-16"));
+        cache.close();
+
+        cache = EitherSnapshotCache.open(file);
+
+        final ResponseBody body = cache.get("a");
+        assertEquals(contentType, body.contentType());
+        assertEquals("value", body.string());
+    }
+
+    @Test
+    public void compactsWhileStoring() throws Exception {
+        final byte[] value = new byte[64 * 1024];
+        for (int i = 0; i < 64; i++) {
+            value[0] = (byte) i;
+            cache.put("a", null, value);
+
+            assertTrue(cache.size() <= 2 * EitherSnapshotCache.COMPACTION_MIN_SIZE);
+        }
+        cache.close();
+
+        cache = EitherSnapshotCache.open(file);
+
+        assertEquals(63, cache.get("a").bytes()[0]);
+    }
+
+    @Test
+    public void deliversSnapshotBeforeNetworkResponse() throws Exception {
+        final SnapshotService service = snapshotService();
+        final Thread caller = Thread.currentThread();
+        final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+        final List<Person> snapshots = new CopyOnWriteArrayList<Person>();
+        final List<Person> received = new CopyOnWriteArrayList<Person>();
+        final EitherSnapshotCallback<Person, Problem> callback = recording(snapshots, received, threads);
+
+        server.enqueue(mockResponse().setBody(gson.toJson(new Person("Cached", "Doe"))));
+        service.person().callback(callback);
+        await();
+
+        assertEquals(1, received.size());
+        assertTrue(snapshots.isEmpty());
+
+        lock = new CountDownLatch(2);
+        server.enqueue(mockResponse()
+                .setBody(gson.toJson(new Person("Fresh", "Doe")))
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+        service.person().callback(callback);
+        await(2);
+
+        assertEquals(1, snapshots.size());
+        assertEquals("Cached", snapshots.get(0).firstName);
+        assertEquals(2, received.size());
+        assertEquals("Fresh", received.get(1).firstName);
+        assertNotSame(caller, threads.get(1));
+    }
+
+    @Test
+    public void malformedBodyKeepsPreviousSnapshot() throws Exception {
+        final SnapshotService service = snapshotService();
+
+        server.enqueue(mockResponse().setBody(gson.toJson(new Person("Cached", "Doe"))));
+        service.person().callback(onLeftCallback);
+        await();
+
+        server.enqueue(mockResponse().setBody("{\"firstName\":"));
+        lock = new CountDownLatch(1);
+        service.person().callback(onExceptionCallback);
+        await();
+
+        final Person snapshot = gson.fromJson(cache.get("GET " + server.url("/person")).string(), Person.class);
+        assertEquals("Cached", snapshot.firstName);
+    }
+
+    @Test
+    public void plainCallbackGetsOnlyFreshResult() throws Exception {
+        final SnapshotService service = snapshotService();
+        final List<Person> received = new CopyOnWriteArrayList<Person>();
+        final EitherOnLeftCallback<Person, Problem> callback = new EitherOnLeftCallback<Person, Problem>() {
+            @Override
+            public void onLeft(Person left) {
+                received.add(left);
+                countDown();
+            }
+        };
+
+        server.enqueue(mockResponse().setBody(gson.toJson(new Person("Cached", "Doe"))));
+        service.person().callback(callback);
+        await();
+        received.clear();
+
+        server.enqueue(mockResponse()
+                .setBody(gson.toJson(new Person("Fresh", "Doe")))
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+        lock = new CountDownLatch(1);
+        service.person().callback(callback);
+        await(2);
+        Thread.sleep(100);
+
+        assertEquals(1, received.size());
+        assertEquals("Fresh", received.get(0).firstName);
+    }
+
+    @Test
+    public void cachedCallRemembersFreshResult() throws Exception {
+        final SnapshotService service = snapshotService();
+        final List<Person> snapshots = new CopyOnWriteArrayList<Person>();
+        final List<Person> received = new CopyOnWriteArrayList<Person>();
+        final EitherSnapshotCallback<Person, Problem> callback =
+                recording(snapshots, received, new CopyOnWriteArrayList<Thread>());
+
+        server.enqueue(mockResponse().setBody(gson.toJson(new Person("Cached", "Doe"))));
+        service.person().callback(callback);
+        await();
+        received.clear();
+
+        lock = new CountDownLatch(2);
+        server.enqueue(mockResponse()
+                .setBody(gson.toJson(new Person("Fresh", "Doe")))
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+        final EitherCall<Person, Problem> call = service.person().cached();
+        call.callback(callback);
+        await(2);
+
+        assertEquals(1, snapshots.size());
+        assertEquals("Cached", snapshots.get(0).firstName);
+        assertEquals(1, received.size());
+        assertEquals("Fresh", received.get(0).firstName);
+
+        lock = new CountDownLatch(1);
+        call.callback(callback);
+        await();
+
+        assertEquals(1, snapshots.size());
+        assertEquals(2, received.size());
+        assertEquals("Fresh", received.get(1).firstName);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private EitherSnapshotCallback<Person, Problem> recording(final List<Person> snapshots,
+                                                            final List<Person> received,
+                                                            final List<Thread> threads) {
+        return new EitherSnapshotCallback<Person, Problem>() {
+            @Override
+            public void onSnapshot(Person snapshot) {
+                snapshots.add(snapshot);
+                threads.add(Thread.currentThread());
+                countDown();
+            }
+
+            @Override
+            public void onLeft(Person left) {
+                received.add(left);
+                threads.add(Thread.currentThread());
+                countDown();
+            }
+
+            @Override
+            public void onRight(Problem right) {
+                fail("onRight called.");
+            }
+
+            @Override
+            public void onException(Throwable t) {
+                fail("onException called.");
+            }
+        };
+    }
+
+    private SnapshotService snapshotService() {
+        final Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addCallAdapterFactory(EitherCallAdapterFactory.builder()
+                        .handler(handlerMock())
+                        .snapshotCache(cache)
+                        .build())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+
+        return retrofit.create(SnapshotService.class);
+    }
+
+    interface SnapshotService {
+        @GET("/person")
+        @Snapshot
+        EitherCall<Person, Problem> person();
+    }
+}
@@ -7,6 +7,8 @@ import okhttp3.mockwebserver.MockWebServer;
 import org.junit.Rule;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
@@ -55,15 +57,30 @@ public class TestEnvironmentAware {
 
     Retrofit defaultRetrofit() {
         final GsonConverterFactory factory = GsonConverterFactory.create(gson);
-        final Handler mock = Mockito.mock(Handler.class);
-
         return new Retrofit.Builder()
                 .baseUrl(server.url("/"))
-                .addCallAdapterFactory(EitherCallAdapterFactory.create(mock))
+                .addCallAdapterFactory(EitherCallAdapterFactory.create(handlerMock()))
                 .addConverterFactory(factory)
                 .build();
     }
 
+    /**
+     * @return The handler which runs the posted runnables right away on the posting thread. Invocations are not
+     * recorded, so the posted runnables are not retained.
+     */
+    Handler handlerMock() {
+        final Handler handler = Mockito.mock(Handler.class, Mockito.withSettings().stubOnly());
+        Mockito.when(handler.post(Mockito.any(Runnable.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                ((Runnable) invocation.getArgument(0)).run();
+                return true;
+            }
+        });
+
+        return handler;
+    }
+
     MockResponse mockResponse() {
         return new MockResponse();
     }